@@ -0,0 +1,23 @@
+package com.udacity.boogle.maps;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the random addresses handed out by the maps service, from the
+ * same package since the repository is package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MockAddressRepositoryBenchmark {
+
+    @Benchmark
+    public Address getRandom() {
+        return MockAddressRepository.getRandom();
+    }
+}
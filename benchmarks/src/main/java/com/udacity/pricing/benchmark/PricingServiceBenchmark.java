@@ -0,0 +1,47 @@
+package com.udacity.pricing.benchmark;
+
+import com.udacity.pricing.domain.price.Price;
+import com.udacity.pricing.service.PriceException;
+import com.udacity.pricing.service.PricingService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Measures the lookups of the pricing service: the price of a known vehicle,
+ * of an unknown one, which is answered with an exception, and the prices of
+ * a page of vehicles at once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingServiceBenchmark {
+
+    private final List<Long> page = LongStream.range(1, 20).boxed().collect(Collectors.toList());
+
+    @Benchmark
+    public Price getPrice() throws PriceException {
+        return PricingService.getPrice(ThreadLocalRandom.current().nextLong(1, 20));
+    }
+
+    @Benchmark
+    public Object getUnknownPrice() {
+        try {
+            return PricingService.getPrice(ThreadLocalRandom.current().nextLong(20, 1000));
+        } catch (PriceException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public List<Price> getPrices() {
+        return PricingService.getPrices(this.page);
+    }
+}
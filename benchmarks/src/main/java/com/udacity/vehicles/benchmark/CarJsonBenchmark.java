@@ -0,0 +1,133 @@
+package com.udacity.vehicles.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.Details;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.Resource;
+import org.springframework.hateoas.Resources;
+import org.springframework.hateoas.core.DefaultRelProvider;
+import org.springframework.hateoas.hal.Jackson2HalModule;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the serialization of cars into the HAL documents returned by the
+ * vehicles API, configured as the application configures Jackson: in full,
+ * restricted to a few properties by the {@code fields} parameter, and within
+ * a list of {@value #CARS} cars. Reported per car, with bytes allocated per
+ * car given by the GC profiler ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarJsonBenchmark {
+
+    private static final int CARS = 100;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+    private ObjectWriter writer;
+    private ObjectWriter fieldsWriter;
+    private Resource<Car> resource;
+    private Resources<Resource<Car>> resources;
+
+    @Setup
+    public void setup() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .filters(new SimpleFilterProvider().setFailOnUnknownId(false))
+                .modulesToInstall(new Jackson2HalModule())
+                .handlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(new DefaultRelProvider(), null, null))
+                .build();
+
+        this.writer = objectMapper.writer();
+        this.fieldsWriter = objectMapper.writer(new SimpleFilterProvider().addFilter(
+                Car.FIELDS_FILTER,
+                SimpleBeanPropertyFilter.filterOutAllExcept("id", "price")
+        ));
+
+        List<Resource<Car>> cars = new ArrayList<>();
+        for (long id = 1; id <= CARS; id++) {
+            cars.add(resource(id));
+        }
+        this.resource = cars.get(0);
+        this.resources = new Resources<>(cars, new Link("http://localhost:8080/cars"));
+    }
+
+    @Benchmark
+    public int single() throws IOException {
+        return this.write(this.writer, this.resource);
+    }
+
+    @Benchmark
+    public int singleWithFields() throws IOException {
+        return this.write(this.fieldsWriter, this.resource);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CARS)
+    public int list() throws IOException {
+        return this.write(this.writer, this.resources);
+    }
+
+    /**
+     * Writes into a reused buffer, as a response is written into the reused
+     * buffer of the servlet container.
+     */
+    private int write(ObjectWriter writer, Object value) throws IOException {
+        this.out.reset();
+        writer.writeValue(this.out, value);
+
+        return this.out.size();
+    }
+
+    private static Resource<Car> resource(long id) {
+        Details details = new Details();
+        details.setManufacturer(new Manufacturer(101, "Chevrolet"));
+        details.setModel("Impala");
+        details.setMileage(32280);
+        details.setExternalColor("white");
+        details.setBody("sedan");
+        details.setEngine("3.6L V6");
+        details.setFuelType("Gasoline");
+        details.setModelYear(2018);
+        details.setProductionYear(2018);
+        details.setNumberOfDoors(4);
+
+        Location location = new Location(40.730610, -73.935242);
+        location.setAddress("777 Brockton Avenue");
+        location.setCity("Abington");
+        location.setState("MA");
+        location.setZip("2351");
+
+        Car car = new Car();
+        car.setId(id);
+        car.setCreatedAt(LocalDateTime.of(2019, 6, 1, 12, 0));
+        car.setModifiedAt(LocalDateTime.of(2019, 6, 2, 12, 0));
+        car.setCondition(Condition.USED);
+        car.setDetails(details);
+        car.setLocation(location);
+        car.setPrice("USD 17500.00");
+
+        return new Resource<>(car,
+                new Link("http://localhost:8080/cars/" + id),
+                new Link("http://localhost:8080/cars", "cars"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.udacity.vehicles.benchmark;
+
+import com.udacity.vehicles.api.CarResourceAssembler;
+import com.udacity.vehicles.domain.car.Car;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.Resource;
+import org.springframework.hateoas.Resources;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code CarResourceAssembler.toResource}, comparing the links of
+ * cars built through the controller for every car with the links appended to
+ * the cars collection link: cars per millisecond and, with the GC profiler,
+ * bytes allocated ({@code gc.alloc.rate.norm}) per car, for a single car and
+ * within a list of {@value #CARS} cars.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarLinksBenchmark {
+
+    private static final int CARS = 100;
+
+    private final CarResourceAssembler perCar = new CarResourceAssembler(false);
+    private final CarResourceAssembler cachedTemplates = new CarResourceAssembler(true);
+    private final List<Car> cars = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cars");
+        request.addHeader("X-Forwarded-Host", "vehicles.example.com");
+        request.addHeader("X-Forwarded-Proto", "https");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        for (long id = 1; id <= CARS; id++) {
+            Car car = new Car();
+            car.setId(id);
+            this.cars.add(car);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public Resource<Car> singlePerCar() {
+        return this.perCar.toResource(this.cars.get(0));
+    }
+
+    @Benchmark
+    public Resource<Car> singleCachedTemplates() {
+        return this.cachedTemplates.toResource(this.cars.get(0));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CARS)
+    public Resources<Resource<Car>> listPerCar() {
+        return this.perCar.toResources(this.cars);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CARS)
+    public Resources<Resource<Car>> listCachedTemplates() {
+        return this.cachedTemplates.toResources(this.cars);
+    }
+}
@@ -0,0 +1,85 @@
+package com.udacity.vehicles.benchmark;
+
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarMapper;
+import com.udacity.vehicles.domain.car.Details;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import org.modelmapper.Conditions;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the update path of the car service before and after ModelMapper
+ * was replaced by {@link CarMapper}: updates per millisecond, and bytes
+ * allocated per update as reported by the GC profiler ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarMapperBenchmark {
+
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final Car[] updates = {car("black", 42000), car("white", 32280)};
+    private final Car stored = car("white", 32280);
+    private int next;
+
+    /**
+     * Alternates between two updates, so that every copy changes the stored car.
+     */
+    private Car update() {
+        this.next ^= 1;
+
+        return this.updates[this.next];
+    }
+
+    /**
+     * The former update path: the shared mapper reconfigured, then three
+     * reflective copies.
+     */
+    @Benchmark
+    public void modelMapper(Blackhole blackhole) {
+        Car update = this.update();
+
+        this.modelMapper.getConfiguration().setPropertyCondition(Conditions.isNotNull());
+        this.modelMapper.map(update.getDetails(), this.stored.getDetails());
+        this.modelMapper.map(update.getLocation(), this.stored.getLocation());
+        this.modelMapper.map(update, this.stored);
+
+        blackhole.consume(this.stored);
+    }
+
+    @Benchmark
+    public boolean carMapper() {
+        return CarMapper.copyNonNull(this.update(), this.stored);
+    }
+
+    private static Car car(String color, int mileage) {
+        Details details = new Details();
+        details.setManufacturer(new Manufacturer(101, "Chevrolet"));
+        details.setModel("Impala");
+        details.setMileage(mileage);
+        details.setExternalColor(color);
+        details.setBody("sedan");
+        details.setEngine("3.6L V6");
+        details.setFuelType("Gasoline");
+        details.setModelYear(2018);
+        details.setProductionYear(2018);
+        details.setNumberOfDoors(4);
+
+        Car car = new Car();
+        car.setId(1L);
+        car.setCondition(Condition.USED);
+        car.setDetails(details);
+        car.setLocation(new Location(40.730610, -73.935242));
+
+        return car;
+    }
+}
@@ -0,0 +1,81 @@
+package com.udacity.vehicles.benchmark;
+
+import com.udacity.vehicles.client.prices.PriceCache;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Measures the price cache of {@code PriceClient} shared by {@code @Threads}
+ * threads, with loaders answering at once so only the cache is measured:
+ * lookups of prices that are all cached, and lookups over ten times more
+ * vehicles than the cache holds, where most lookups load and evict a price,
+ * and lookups of the prices of a whole page of cars.
+ * Run with {@code -t} to change the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class PriceCacheBenchmark {
+
+    private static final int MAXIMUM_SIZE = 10_000;
+    private static final int PAGE = 20;
+
+    private final List<List<Long>> pages = new ArrayList<>();
+    private PriceCache cache;
+
+    @Setup
+    public void setup() {
+        Function<Long, Mono<String>> loader = vehicleId -> Mono.just("USD " + vehicleId);
+
+        this.cache = new PriceCache(
+                MAXIMUM_SIZE,
+                Duration.ofMinutes(10),
+                Duration.ofSeconds(10),
+                "(consult price)",
+                loader,
+                vehicleIds -> Mono.just(vehicleIds.stream()
+                        .collect(Collectors.toMap(Function.identity(), vehicleId -> "USD " + vehicleId)))
+        );
+
+        for (long vehicleId = 1; vehicleId <= MAXIMUM_SIZE; vehicleId++) {
+            this.cache.get(vehicleId).block();
+        }
+
+        for (long first = 1; first <= MAXIMUM_SIZE; first += PAGE) {
+            this.pages.add(LongStream.range(first, first + PAGE).boxed().collect(Collectors.toList()));
+        }
+    }
+
+    @Benchmark
+    public String hit() {
+        return this.cache.get(ThreadLocalRandom.current().nextLong(1, MAXIMUM_SIZE + 1)).block();
+    }
+
+    @Benchmark
+    public String mostlyMiss() {
+        return this.cache.get(ThreadLocalRandom.current().nextLong(1, 10L * MAXIMUM_SIZE + 1)).block();
+    }
+
+    /**
+     * Looks up the prices of a page of {@value #PAGE} cars at once.
+     */
+    @Benchmark
+    @OperationsPerInvocation(PAGE)
+    public Map<Long, String> pageHit() {
+        return this.cache.getAll(this.pages.get(ThreadLocalRandom.current().nextInt(this.pages.size()))).block();
+    }
+}
@@ -1,7 +1,8 @@
 package com.udacity.boogle.maps;
 
 /**
- * Declares a class to store an address, city, state and zip code.
+ * Declares a class to store an address, city, state and zip code. Addresses
+ * resolved in a batch also carry the coordinate they were resolved for.
  */
 public class Address {
 
@@ -9,6 +10,8 @@ public class Address {
     private String city;
     private String state;
     private String zip;
+    private Double lat;
+    private Double lon;
 
     public Address() {
     }
@@ -20,6 +23,16 @@ public class Address {
         this.zip = zip;
     }
 
+    /**
+     * @param other      the address to copy
+     * @param coordinate the coordinate the address was resolved for
+     */
+    public Address(Address other, Coordinate coordinate) {
+        this(other.address, other.city, other.state, other.zip);
+        this.lat = coordinate.getLat();
+        this.lon = coordinate.getLon();
+    }
+
     public String getAddress() {
         return address;
     }
@@ -51,4 +64,20 @@ public class Address {
     public void setZip(String zip) {
         this.zip = zip;
     }
+
+    public Double getLat() {
+        return lat;
+    }
+
+    public void setLat(Double lat) {
+        this.lat = lat;
+    }
+
+    public Double getLon() {
+        return lon;
+    }
+
+    public void setLon(Double lon) {
+        this.lon = lon;
+    }
 }
@@ -0,0 +1,34 @@
+package com.udacity.boogle.maps;
+
+/**
+ * Declares a class to store a latitude and longitude pair.
+ */
+public class Coordinate {
+
+    private Double lat;
+    private Double lon;
+
+    public Coordinate() {
+    }
+
+    public Coordinate(Double lat, Double lon) {
+        this.lat = lat;
+        this.lon = lon;
+    }
+
+    public Double getLat() {
+        return lat;
+    }
+
+    public void setLat(Double lat) {
+        this.lat = lat;
+    }
+
+    public Double getLon() {
+        return lon;
+    }
+
+    public void setLon(Double lon) {
+        this.lon = lon;
+    }
+}
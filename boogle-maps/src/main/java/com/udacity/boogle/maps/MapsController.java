@@ -1,16 +1,44 @@
 package com.udacity.boogle.maps;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/maps")
 public class MapsController {
 
+    static final int MAX_BATCH_SIZE = 1000;
+
     @GetMapping
     public Address get(@RequestParam Double lat, @RequestParam Double lon) {
         return MockAddressRepository.getRandom();
     }
+
+    /**
+     * Resolves several coordinates with a single request.
+     *
+     * @param coordinates latitude and longitude pairs to resolve
+     * @return the address of every coordinate, in request order, each
+     * carrying the coordinate it was resolved for
+     */
+    @PostMapping("/batch")
+    public List<Address> getBatch(@RequestBody List<Coordinate> coordinates) {
+        if (coordinates.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "At most " + MAX_BATCH_SIZE + " coordinates per batch");
+        }
+
+        return coordinates.stream()
+                .map(coordinate -> new Address(this.get(coordinate.getLat(), coordinate.getLon()), coordinate))
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,104 @@
+package com.udacity.boogle.maps;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Implements testing of the MapsController class.
+ */
+@RunWith(SpringRunner.class)
+@WebMvcTest(MapsController.class)
+public class MapsControllerTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @SpyBean
+    private MapsController controller;
+
+    /**
+     * Tests that the addresses of a batch are returned in the order of its coordinates.
+     */
+    @Test
+    public void batchKeepsOrder() throws Exception {
+        doReturn(new Address("777 Brockton Avenue", "Abington", "MA", "2351"))
+                .when(controller).get(40.730610, -73.935242);
+        doReturn(new Address("30 Memorial Drive", "Avon", "MA", "2322"))
+                .when(controller).get(42.3601, -71.0589);
+
+        mvc.perform(post("/maps/batch")
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .content("[{\"lat\":42.3601,\"lon\":-71.0589},{\"lat\":40.730610,\"lon\":-73.935242},"
+                                + "{\"lat\":42.3601,\"lon\":-71.0589}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].address").value("30 Memorial Drive"))
+                .andExpect(jsonPath("$[0].lat").value(42.3601))
+                .andExpect(jsonPath("$[1].address").value("777 Brockton Avenue"))
+                .andExpect(jsonPath("$[1].lon").value(-73.935242))
+                .andExpect(jsonPath("$[2].address").value("30 Memorial Drive"));
+    }
+
+    /**
+     * Tests that a batch larger than MAX_BATCH_SIZE is rejected without resolving any coordinate.
+     */
+    @Test
+    public void oversizedBatchIsRejected() throws Exception {
+        String coordinates = IntStream.range(0, MapsController.MAX_BATCH_SIZE + 1)
+                .mapToObj(i -> "{\"lat\":40.0,\"lon\":-73.0}")
+                .collect(Collectors.joining(",", "[", "]"));
+
+        mvc.perform(post("/maps/batch")
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .content(coordinates))
+                .andExpect(status().isBadRequest());
+
+        verify(controller, never()).get(anyDouble(), anyDouble());
+    }
+
+    /**
+     * Tests that a batch of MAX_BATCH_SIZE coordinates is accepted.
+     */
+    @Test
+    public void fullBatchIsAccepted() throws Exception {
+        String coordinates = IntStream.range(0, MapsController.MAX_BATCH_SIZE)
+                .mapToObj(i -> "{\"lat\":40.0,\"lon\":-73.0}")
+                .collect(Collectors.joining(",", "[", "]"));
+
+        mvc.perform(post("/maps/batch")
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .content(coordinates))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(MapsController.MAX_BATCH_SIZE)));
+    }
+
+    /**
+     * Tests that an empty batch gets an empty list of addresses.
+     */
+    @Test
+    public void emptyBatchReturnsNoAddress() throws Exception {
+        mvc.perform(post("/maps/batch")
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .content("[]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+}
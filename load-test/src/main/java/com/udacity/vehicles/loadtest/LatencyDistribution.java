@@ -0,0 +1,96 @@
+package com.udacity.vehicles.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency a stub server waits before answering, drawn for every request from
+ * one of these distributions, in milliseconds:
+ * <ul>
+ * <li>{@code none}</li>
+ * <li>{@code fixed:<ms>}</li>
+ * <li>{@code uniform:<min>-<max>}</li>
+ * <li>{@code lognormal:<median>,<p99>}, the long tail of most services</li>
+ * </ul>
+ */
+final class LatencyDistribution {
+
+    /**
+     * Standard normal quantile of the 99th percentile.
+     */
+    private static final double Z_99 = 2.326348;
+
+    private final String spec;
+    private final LongSupplier nanos;
+
+    private LatencyDistribution(String spec, LongSupplier nanos) {
+        this.spec = spec;
+        this.nanos = nanos;
+    }
+
+    /**
+     * @param spec the distribution, as described above
+     * @return the parsed distribution
+     * @throws IllegalArgumentException if the distribution is not understood
+     */
+    static LatencyDistribution parse(String spec) {
+        String[] kindAndArgs = spec.trim().split(":", 2);
+        String kind = kindAndArgs[0];
+
+        try {
+            if (kind.equals("none") && kindAndArgs.length == 1) {
+                return new LatencyDistribution(spec, () -> 0);
+            }
+
+            if (kind.equals("fixed") && kindAndArgs.length == 2) {
+                long fixed = millisToNanos(Double.parseDouble(kindAndArgs[1]));
+                return new LatencyDistribution(spec, () -> fixed);
+            }
+
+            if (kind.equals("uniform") && kindAndArgs.length == 2) {
+                String[] bounds = kindAndArgs[1].split("-");
+                long min = millisToNanos(Double.parseDouble(bounds[0]));
+                long max = millisToNanos(Double.parseDouble(bounds[1]));
+                if (bounds.length == 2 && min <= max) {
+                    return new LatencyDistribution(spec, () -> ThreadLocalRandom.current().nextLong(min, max + 1));
+                }
+            }
+
+            if (kind.equals("lognormal") && kindAndArgs.length == 2) {
+                String[] quantiles = kindAndArgs[1].split(",");
+                double median = Double.parseDouble(quantiles[0]);
+                double p99 = Double.parseDouble(quantiles[1]);
+                if (quantiles.length == 2 && median > 0 && p99 >= median) {
+                    double sigma = Math.log(p99 / median) / Z_99;
+                    return new LatencyDistribution(spec, () ->
+                            millisToNanos(median * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian())));
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid latency distribution: " + spec, e);
+        }
+
+        throw new IllegalArgumentException("Invalid latency distribution: " + spec);
+    }
+
+    /**
+     * @return the latency of the next request
+     */
+    Duration next() {
+        return Duration.ofNanos(this.nanos.getAsLong());
+    }
+
+    @Override
+    public String toString() {
+        return this.spec;
+    }
+
+    private static long millisToNanos(double millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Negative latency: " + millis);
+        }
+
+        return Math.round(millis * 1_000_000);
+    }
+}
@@ -0,0 +1,86 @@
+package com.udacity.vehicles.loadtest;
+
+import com.udacity.vehicles.loadtest.Workload.Operation;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a fixed arrival rate, whether or not the previous ones
+ * were answered. The latency of a request runs from the moment it was due,
+ * so a request delayed by a stalled client or server counts the delay too,
+ * instead of hiding it as a closed loop of requests would.
+ */
+final class LoadGenerator {
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final AtomicLong inFlight = new AtomicLong();
+
+    /**
+     * Sends requests during the warmup then during the measurement, and waits
+     * for the ones still in flight.
+     *
+     * @param workload the requests to send
+     * @param rate     requests sent per second
+     * @param warmup   how long requests are sent before being measured
+     * @param duration how long requests are measured
+     * @return the latencies and errors of the requests sent during the measurement
+     * @throws InterruptedException if interrupted while sending or waiting
+     */
+    Report run(Workload workload, int rate, Duration warmup, Duration duration) throws InterruptedException {
+        Report report = new Report();
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / (double) rate;
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        for (long i = 0; ; i++) {
+            long due = start + (long) (i * intervalNanos);
+            if (due >= end) {
+                break;
+            }
+
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            this.send(workload, workload.nextOperation(), due, due >= measureFrom ? report : null);
+        }
+
+        long giveUp = System.nanoTime() + Workload.REQUEST_TIMEOUT.toNanos() + TimeUnit.SECONDS.toNanos(5);
+        while (this.inFlight.get() > 0 && System.nanoTime() < giveUp) {
+            Thread.sleep(10);
+        }
+
+        return report;
+    }
+
+    private void send(Workload workload, Operation operation, long due, Report report) {
+        this.inFlight.incrementAndGet();
+
+        this.client.sendAsync(workload.request(operation), HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> {
+                    long latency = System.nanoTime() - due;
+                    boolean failed = error != null || response.statusCode() >= 400;
+
+                    if (!failed) {
+                        workload.completed(operation, response);
+                    }
+                    if (report != null) {
+                        report.record(operation, latency, failed);
+                    }
+                    this.inFlight.decrementAndGet();
+                });
+    }
+}
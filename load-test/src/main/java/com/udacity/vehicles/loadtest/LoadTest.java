@@ -0,0 +1,140 @@
+package com.udacity.vehicles.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udacity.vehicles.VehiclesApiApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load test of the vehicles API, on a single machine without network:
+ * starts stubs of the pricing service and Boogle Maps answering after
+ * configurable latencies, one or several vehicles API instances sharing an
+ * in-memory database, seeds cars, then sends a mix of requests at a fixed
+ * rate and prints the latency percentiles, throughput and error rate of
+ * every operation. Run it without arguments for the defaults, or with
+ * {@code --help} for the options.
+ */
+public class LoadTest {
+
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    public static void main(String[] args) throws Exception {
+        if (Arrays.asList(args).contains("--help")) {
+            System.out.println(LoadTestOptions.USAGE);
+            return;
+        }
+
+        LoadTestOptions options;
+        try {
+            options = new LoadTestOptions(args);
+            options.pricingLatency();
+            options.mapsLatency();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadTestOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        List<ConfigurableApplicationContext> instances = new ArrayList<>();
+
+        try (StubServer pricing = StubServer.pricing(options.pricingLatency());
+             StubServer maps = StubServer.maps(options.mapsLatency())) {
+            System.out.println(pricing);
+            System.out.println(maps);
+
+            List<URI> baseUrls = new ArrayList<>();
+            for (int i = 0; i < options.instances(); i++) {
+                ConfigurableApplicationContext instance = startInstance(options, pricing, maps);
+                instances.add(instance);
+                baseUrls.add(URI.create("http://127.0.0.1:" + instance.getEnvironment().getProperty("local.server.port")));
+                System.out.println("vehicles API at " + baseUrls.get(i));
+            }
+
+            Workload workload = new Workload(baseUrls, options.mix());
+            workload.addCars(seed(baseUrls.get(0), options.seedCars()));
+
+            System.out.printf("%d requests/s, mix %s, %ds warmup then %ds measured%n",
+                    options.rate(), options.mix(), options.warmup().getSeconds(), options.duration().getSeconds());
+
+            Report report = new LoadGenerator().run(workload, options.rate(), options.warmup(), options.duration());
+            report.print(System.out, options.duration());
+        } finally {
+            instances.forEach(ConfigurableApplicationContext::close);
+        }
+
+        System.exit(0);
+    }
+
+    /**
+     * Starts a vehicles API instance on a free port, using the stub servers
+     * and the in-memory database shared by every instance. The properties
+     * given with {@code --app.} take precedence.
+     */
+    private static ConfigurableApplicationContext startInstance(LoadTestOptions options,
+                                                                StubServer pricing, StubServer maps) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("pricing.endpoint", pricing.baseUrl());
+        properties.put("maps.endpoint", maps.baseUrl());
+        properties.put("spring.datasource.url", "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1");
+        // several instances in one JVM would register the same MBeans
+        properties.put("spring.jmx.enabled", "false");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.putAll(options.appProperties());
+
+        return new SpringApplicationBuilder(VehiclesApiApplication.class)
+                .run(properties.entrySet()
+                        .stream()
+                        .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                        .toArray(String[]::new));
+    }
+
+    /**
+     * Creates random cars through {@code POST /cars/bulk}.
+     *
+     * @return the IDs of the cars created
+     */
+    private static List<Long> seed(URI baseUrl, int count) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Long> carIds = new ArrayList<>();
+
+        for (int seeded = 0; seeded < count; seeded += SEED_BATCH_SIZE) {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(baseUrl.resolve("/cars/bulk"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(
+                                    Workload.randomCars(Math.min(SEED_BATCH_SIZE, count - seeded))))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            if (response.statusCode() >= 400) {
+                throw new IllegalStateException("Seeding cars failed with status " + response.statusCode()
+                        + ": " + response.body());
+            }
+
+            for (JsonNode item : objectMapper.readTree(response.body()).path("items")) {
+                if (item.hasNonNull("id")) {
+                    carIds.add(item.get("id").asLong());
+                }
+            }
+        }
+
+        System.out.printf("%d cars seeded%n", carIds.size());
+
+        return carIds;
+    }
+}
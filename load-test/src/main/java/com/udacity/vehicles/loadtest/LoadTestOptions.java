@@ -0,0 +1,128 @@
+package com.udacity.vehicles.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Options of the load test, given as {@code --name=value} arguments.
+ * Arguments starting with {@code --app.} are handed to every vehicles API
+ * instance without the prefix, such as
+ * {@code --app.vehicles.enrichment.write-mode=SYNC}.
+ */
+final class LoadTestOptions {
+
+    static final String USAGE = String.join(System.lineSeparator(),
+            "Options, with their defaults:",
+            "  --rate=200                  requests sent per second",
+            "  --warmup=10                 seconds of requests sent before measuring",
+            "  --duration=60               seconds of requests measured",
+            "  --mix=list=40,get=40,create=10,update=10",
+            "                              weight of every operation",
+            "  --instances=1               vehicles API instances the requests are spread over",
+            "  --seed-cars=1000            cars created before the load starts",
+            "  --pricing-latency=lognormal:20,200",
+            "  --maps-latency=lognormal:30,300",
+            "                              latency of the stub servers in milliseconds: none,",
+            "                              fixed:<ms>, uniform:<min>-<max> or lognormal:<median>,<p99>",
+            "  --app.<property>=<value>    property of every vehicles API instance");
+
+    private static final String APP_PREFIX = "app.";
+
+    private final Map<String, String> options = new HashMap<>();
+    private final Map<String, String> appProperties = new LinkedHashMap<>();
+
+    /**
+     * @param args the arguments of the load test
+     * @throws IllegalArgumentException if an argument is not an option
+     */
+    LoadTestOptions(String[] args) {
+        this.options.put("rate", "200");
+        this.options.put("warmup", "10");
+        this.options.put("duration", "60");
+        this.options.put("mix", "list=40,get=40,create=10,update=10");
+        this.options.put("instances", "1");
+        this.options.put("seed-cars", "1000");
+        this.options.put("pricing-latency", "lognormal:20,200");
+        this.options.put("maps-latency", "lognormal:30,300");
+
+        for (String arg : args) {
+            String[] nameAndValue = arg.startsWith("--") ? arg.substring(2).split("=", 2) : new String[0];
+
+            if (nameAndValue.length != 2) {
+                throw new IllegalArgumentException("Invalid argument: " + arg);
+            }
+
+            if (nameAndValue[0].startsWith(APP_PREFIX)) {
+                this.appProperties.put(nameAndValue[0].substring(APP_PREFIX.length()), nameAndValue[1]);
+            } else if (this.options.containsKey(nameAndValue[0])) {
+                this.options.put(nameAndValue[0], nameAndValue[1]);
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + nameAndValue[0]);
+            }
+        }
+    }
+
+    int rate() {
+        return this.positive("rate");
+    }
+
+    Duration warmup() {
+        return Duration.ofSeconds(this.number("warmup"));
+    }
+
+    Duration duration() {
+        return Duration.ofSeconds(this.positive("duration"));
+    }
+
+    String mix() {
+        return this.options.get("mix");
+    }
+
+    int instances() {
+        return this.positive("instances");
+    }
+
+    int seedCars() {
+        return this.number("seed-cars");
+    }
+
+    LatencyDistribution pricingLatency() {
+        return LatencyDistribution.parse(this.options.get("pricing-latency"));
+    }
+
+    LatencyDistribution mapsLatency() {
+        return LatencyDistribution.parse(this.options.get("maps-latency"));
+    }
+
+    /**
+     * @return the properties given with {@code --app.}, without the prefix
+     */
+    Map<String, String> appProperties() {
+        return this.appProperties;
+    }
+
+    private int positive(String name) {
+        int value = this.number(name);
+
+        if (value == 0) {
+            throw new IllegalArgumentException("--" + name + " must be positive");
+        }
+
+        return value;
+    }
+
+    private int number(String name) {
+        try {
+            int value = Integer.parseInt(this.options.get(name));
+            if (value >= 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+
+        throw new IllegalArgumentException("--" + name + " must be a number: " + this.options.get(name));
+    }
+}
@@ -0,0 +1,94 @@
+package com.udacity.vehicles.loadtest;
+
+import com.udacity.vehicles.loadtest.Workload.Operation;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and errors of the requests sent during the measurement, per
+ * operation. Latencies are kept with three significant digits.
+ */
+final class Report {
+
+    private static final String ROW = "%-8s %10s %8s %8s %12s %10s %10s %10s %10s%n";
+
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+    Report() {
+        for (Operation operation : Operation.values()) {
+            this.latencies.put(operation, new ConcurrentHistogram(3));
+            this.errors.put(operation, new LongAdder());
+        }
+    }
+
+    /**
+     * @param operation    the operation sent
+     * @param latencyNanos time between the moment the request was due and its response
+     * @param failed       whether the request failed or was answered with an error status
+     */
+    void record(Operation operation, long latencyNanos, boolean failed) {
+        this.latencies.get(operation).recordValue(latencyNanos);
+        if (failed) {
+            this.errors.get(operation).increment();
+        }
+    }
+
+    /**
+     * Prints the number of requests, their error rate, throughput and
+     * latency percentiles in milliseconds, per operation and in total.
+     *
+     * @param out      where to print
+     * @param duration how long the measurement lasted
+     */
+    void print(PrintStream out, Duration duration) {
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+
+        out.printf(ROW, "", "requests", "errors", "error %", "requests/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = this.latencies.get(operation);
+            long errors = this.errors.get(operation).sum();
+
+            if (histogram.getTotalCount() > 0) {
+                this.printRow(out, operation.key(), histogram, errors, duration);
+                total.add(histogram);
+                totalErrors += errors;
+            }
+        }
+
+        this.printRow(out, "total", total, totalErrors, duration);
+    }
+
+    private void printRow(PrintStream out, String name, Histogram histogram, long errors, Duration duration) {
+        long requests = histogram.getTotalCount();
+
+        out.printf(ROW,
+                name,
+                requests,
+                errors,
+                format(requests == 0 ? 0 : 100.0 * errors / requests),
+                format(requests * 1000.0 / duration.toMillis()),
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static String millis(long nanos) {
+        return format(nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+}
@@ -0,0 +1,156 @@
+package com.udacity.vehicles.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.NettyOutbound;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * In-process stand-in for the pricing service or Boogle Maps, listening on a
+ * free loopback port. It answers the requests the vehicles API sends to the
+ * real service, single and batch, after a latency drawn from a distribution.
+ */
+final class StubServer implements AutoCloseable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String[][] ADDRESSES = {
+            {"777 Brockton Avenue", "Abington", "MA", "2351"},
+            {"30 Memorial Drive", "Avon", "MA", "2322"},
+            {"250 Hartford Avenue", "Bellingham", "MA", "2019"},
+            {"700 Oak Street", "Brockton", "MA", "2301"},
+            {"66-4 Parkhurst Rd", "Chelmsford", "MA", "1824"},
+    };
+
+    private final String name;
+    private final LatencyDistribution latency;
+    private final DisposableServer server;
+
+    private StubServer(String name, LatencyDistribution latency,
+                       Function<HttpServerRequest, Mono<JsonNode>> answer) {
+        this.name = name;
+        this.latency = latency;
+        this.server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .handle((request, response) -> this.handle(request, response, answer))
+                .bindNow();
+    }
+
+    /**
+     * @param latency latency added to every request
+     * @return a started stub of the pricing service
+     */
+    static StubServer pricing(LatencyDistribution latency) {
+        return new StubServer("pricing", latency, request -> {
+            String path = new QueryStringDecoder(request.uri()).path();
+
+            if (request.method().equals(HttpMethod.GET) && path.startsWith("/services/price/")) {
+                return Mono.just(price(Long.parseLong(path.substring("/services/price/".length()))));
+            }
+            if (request.method().equals(HttpMethod.POST) && path.equals("/services/price/batch")) {
+                return body(request).map(vehicleIds -> {
+                    ArrayNode prices = MAPPER.createArrayNode();
+                    vehicleIds.forEach(vehicleId -> prices.add(price(vehicleId.asLong())));
+                    return prices;
+                });
+            }
+
+            return Mono.empty();
+        });
+    }
+
+    /**
+     * @param latency latency added to every request
+     * @return a started stub of Boogle Maps
+     */
+    static StubServer maps(LatencyDistribution latency) {
+        return new StubServer("maps", latency, request -> {
+            String path = new QueryStringDecoder(request.uri()).path();
+
+            if (request.method().equals(HttpMethod.GET) && (path.equals("/maps") || path.equals("/maps/"))) {
+                return Mono.just(address());
+            }
+            if (request.method().equals(HttpMethod.POST) && path.equals("/maps/batch")) {
+                return body(request).map(coordinates -> {
+                    ArrayNode addresses = MAPPER.createArrayNode();
+                    coordinates.forEach(coordinate -> addresses.add(address()));
+                    return addresses;
+                });
+            }
+
+            return Mono.empty();
+        });
+    }
+
+    /**
+     * @return the base URL of the server, such as {@code http://127.0.0.1:40123}
+     */
+    String baseUrl() {
+        return "http://127.0.0.1:" + this.server.port();
+    }
+
+    @Override
+    public void close() {
+        this.server.disposeNow();
+    }
+
+    @Override
+    public String toString() {
+        return this.name + " stub at " + this.baseUrl() + ", latency " + this.latency;
+    }
+
+    private Publisher<Void> handle(HttpServerRequest request, HttpServerResponse response,
+                                   Function<HttpServerRequest, Mono<JsonNode>> answer) {
+        return Mono.delay(this.latency.next())
+                .then(Mono.defer(() -> answer.apply(request)))
+                .map(json -> response
+                        .header("Content-Type", "application/json")
+                        .sendString(Mono.just(json.toString())))
+                .switchIfEmpty(Mono.fromSupplier(() -> response.status(HttpResponseStatus.NOT_FOUND).send()))
+                .onErrorResume(e -> Mono.fromSupplier(() -> response.status(HttpResponseStatus.BAD_REQUEST).send()))
+                .flatMap(NettyOutbound::then);
+    }
+
+    private static Mono<JsonNode> body(HttpServerRequest request) {
+        return request.receive().aggregate().asString().map(body -> {
+            try {
+                return MAPPER.readTree(body);
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e);
+            }
+        });
+    }
+
+    private static ObjectNode price(long vehicleId) {
+        return MAPPER.createObjectNode()
+                .put("currency", "USD")
+                .put("price", BigDecimal.valueOf(10_000 + vehicleId % 20_000, 0).setScale(2))
+                .put("vehicleId", vehicleId);
+    }
+
+    private static ObjectNode address() {
+        String[] address = ADDRESSES[ThreadLocalRandom.current().nextInt(ADDRESSES.length)];
+
+        return MAPPER.createObjectNode()
+                .put("address", address[0])
+                .put("city", address[1])
+                .put("state", address[2])
+                .put("zip", address[3]);
+    }
+}
@@ -0,0 +1,211 @@
+package com.udacity.vehicles.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The requests sent to the vehicles API instances, in turns, mixed by weight,
+ * such as {@code list=40,get=40,create=10,update=10}. Cars are read and
+ * updated among the cars seeded or created so far.
+ */
+final class Workload {
+
+    static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * The manufacturers the vehicles API starts with, by code.
+     */
+    private static final String[] MANUFACTURERS = {"Audi", "Chevrolet", "Ford", "BMW", "Dodge"};
+
+    /**
+     * The operations of the mix, by the name used to weigh them.
+     */
+    enum Operation {
+        LIST, GET, CREATE, UPDATE;
+
+        String key() {
+            return this.name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final List<URI> instances;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final List<Long> carIds = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger nextInstance = new AtomicInteger();
+
+    /**
+     * @param instances base URLs of the vehicles API instances
+     * @param mix       weight of every operation, such as {@code list=40,get=40,create=10,update=10}
+     * @throws IllegalArgumentException if the mix is not understood
+     */
+    Workload(List<URI> instances, String mix) {
+        Map<Operation, Integer> weights = parseMix(mix);
+
+        this.instances = instances;
+        this.operations = weights.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[this.operations.length];
+
+        int total = 0;
+        for (int i = 0; i < this.operations.length; i++) {
+            total += weights.get(this.operations[i]);
+            this.cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * @return the next operation, drawn by weight; reads and updates wait
+     * for a car to exist and are replaced by creates until then
+     */
+    Operation nextOperation() {
+        int draw = ThreadLocalRandom.current().nextInt(this.cumulativeWeights[this.cumulativeWeights.length - 1]);
+        int i = 0;
+        while (draw >= this.cumulativeWeights[i]) {
+            i++;
+        }
+
+        Operation operation = this.operations[i];
+        boolean needsCar = operation == Operation.GET || operation == Operation.UPDATE;
+
+        return needsCar && this.carIds.isEmpty() ? Operation.CREATE : operation;
+    }
+
+    /**
+     * @param operation the operation to send
+     * @return the request performing it, addressed to the next instance
+     */
+    HttpRequest request(Operation operation) {
+        URI cars = this.instances.get(Math.floorMod(this.nextInstance.getAndIncrement(), this.instances.size()))
+                .resolve("/cars");
+        HttpRequest.Builder request = HttpRequest.newBuilder().timeout(REQUEST_TIMEOUT);
+
+        switch (operation) {
+            case LIST:
+                return request.uri(URI.create(cars + "?limit=20")).GET().build();
+            case GET:
+                return request.uri(URI.create(cars + "/" + this.randomCarId())).GET().build();
+            case CREATE:
+                return request.uri(cars)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(randomCar()))
+                        .build();
+            case UPDATE:
+                return request.uri(URI.create(cars + "/" + this.randomCarId()))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(randomCar()))
+                        .build();
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    /**
+     * Keeps the ID of the cars created, to read and update them afterwards.
+     */
+    void completed(Operation operation, HttpResponse<String> response) {
+        if (operation != Operation.CREATE) {
+            return;
+        }
+
+        try {
+            JsonNode id = MAPPER.readTree(response.body()).get("id");
+            if (id != null) {
+                this.carIds.add(id.asLong());
+            }
+        } catch (IOException e) {
+            // counted as a success nonetheless: the car was created
+        }
+    }
+
+    /**
+     * @param carIds IDs of cars created before the load starts
+     */
+    void addCars(Collection<Long> carIds) {
+        this.carIds.addAll(carIds);
+    }
+
+    /**
+     * @param count number of cars
+     * @return a JSON array of that many random cars, for {@code POST /cars/bulk}
+     */
+    static String randomCars(int count) {
+        StringJoiner cars = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < count; i++) {
+            cars.add(randomCar());
+        }
+
+        return cars.toString();
+    }
+
+    private Long randomCarId() {
+        synchronized (this.carIds) {
+            return this.carIds.get(ThreadLocalRandom.current().nextInt(this.carIds.size()));
+        }
+    }
+
+    /**
+     * @return a car of one of the manufacturers the vehicles API starts with,
+     * located around New York
+     */
+    private static String randomCar() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int manufacturer = random.nextInt(MANUFACTURERS.length);
+
+        return String.format(Locale.ROOT, "{"
+                        + "\"condition\":\"%s\","
+                        + "\"details\":{"
+                        + "\"body\":\"sedan\",\"model\":\"Impala\",\"manufacturer\":{\"code\":%d,\"name\":\"%s\"},"
+                        + "\"numberOfDoors\":4,\"fuelType\":\"Gasoline\",\"engine\":\"3.6L V6\","
+                        + "\"mileage\":%d,\"modelYear\":2018,\"productionYear\":2018,\"externalColor\":\"white\"},"
+                        + "\"location\":{\"lat\":%.6f,\"lon\":%.6f}"
+                        + "}",
+                random.nextBoolean() ? "USED" : "NEW",
+                100 + manufacturer,
+                MANUFACTURERS[manufacturer],
+                random.nextInt(0, 200_000),
+                40.5 + random.nextDouble(0.4),
+                -74.2 + random.nextDouble(0.5));
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+
+        for (String entry : mix.split(",")) {
+            String[] keyAndWeight = entry.trim().split("=");
+            Operation operation = Arrays.stream(Operation.values())
+                    .filter(candidate -> keyAndWeight.length == 2 && candidate.key().equals(keyAndWeight[0].trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Invalid mix entry: " + entry));
+
+            int weight;
+            try {
+                weight = Integer.parseInt(keyAndWeight[1].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry, e);
+            }
+            if (weight < 0) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            }
+            if (weight > 0) {
+                weights.put(operation, weight);
+            }
+        }
+
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Empty mix: " + mix);
+        }
+
+        return weights;
+    }
+}
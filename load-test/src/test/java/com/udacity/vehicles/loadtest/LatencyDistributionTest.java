@@ -0,0 +1,62 @@
+package com.udacity.vehicles.loadtest;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Implements testing of the LatencyDistribution class.
+ */
+public class LatencyDistributionTest {
+
+    /**
+     * Tests that fixed and uniform latencies stay within their bounds.
+     */
+    @Test
+    public void boundedLatencies() {
+        assertThat(LatencyDistribution.parse("none").next(), equalTo(Duration.ZERO));
+        assertThat(LatencyDistribution.parse("fixed:2.5").next(), equalTo(Duration.ofMicros(2500)));
+
+        LatencyDistribution uniform = LatencyDistribution.parse("uniform:5-10");
+        assertThat(IntStream.range(0, 1000)
+                .mapToObj(i -> uniform.next())
+                .allMatch(latency -> latency.compareTo(Duration.ofMillis(5)) >= 0
+                        && latency.compareTo(Duration.ofMillis(10)) <= 0), equalTo(true));
+    }
+
+    /**
+     * Tests that a lognormal latency has the requested median and 99th percentile.
+     */
+    @Test
+    public void lognormalQuantiles() {
+        LatencyDistribution lognormal = LatencyDistribution.parse("lognormal:20,200");
+        long[] millis = IntStream.range(0, 100_000)
+                .mapToLong(i -> lognormal.next().toMillis())
+                .sorted()
+                .toArray();
+
+        assertThat(Math.abs(millis[50_000] - 20) <= 1, equalTo(true));
+        assertThat(Math.abs(millis[99_000] - 200) <= 20, equalTo(true));
+    }
+
+    /**
+     * Tests that malformed distributions are rejected.
+     */
+    @Test
+    public void malformedDistributions() {
+        Arrays.asList("", "fixed", "fixed:x", "fixed:-1", "uniform:10-5", "uniform:5", "lognormal:20",
+                "lognormal:200,20", "pareto:1").forEach(spec -> {
+            try {
+                LatencyDistribution.parse(spec);
+                throw new AssertionError("Accepted " + spec);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        });
+    }
+}
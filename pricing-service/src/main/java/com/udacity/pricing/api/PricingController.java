@@ -6,6 +6,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.List;
+
 /**
  * Implements a REST-based controller for the pricing service.
  */
@@ -13,6 +15,8 @@ import org.springframework.web.server.ResponseStatusException;
 @RequestMapping("/services/price")
 public class PricingController {
 
+    static final int MAX_BATCH_SIZE = 500;
+
     /**
      * Gets the price for a requested vehicle.
      *
@@ -27,4 +31,20 @@ public class PricingController {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Price Not Found", ex);
         }
     }
+
+    /**
+     * Gets the prices for several vehicles with a single request.
+     *
+     * @param vehicleIds ID numbers of the vehicles for which the prices are requested
+     * @return prices of the vehicles that were found; unknown vehicles are left out
+     */
+    @PostMapping("/batch")
+    public List<Price> getBatch(@RequestBody List<Long> vehicleIds) {
+        if (vehicleIds.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "At most " + MAX_BATCH_SIZE + " vehicles per batch");
+        }
+
+        return PricingService.getPrices(vehicleIds);
+    }
 }
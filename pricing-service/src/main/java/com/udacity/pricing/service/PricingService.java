@@ -3,7 +3,10 @@ package com.udacity.pricing.service;
 import com.udacity.pricing.domain.price.Price;
 
 import java.math.*;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.*;
 
@@ -35,6 +38,20 @@ public class PricingService {
         return PRICES.get(vehicleId);
     }
 
+    /**
+     * Gets the prices of several vehicles at once, skipping the ones without a price.
+     *
+     * @param vehicleIds ID numbers of the vehicles the prices are requested for.
+     * @return prices of the requested vehicles that were found, in request order
+     */
+    public static List<Price> getPrices(Collection<Long> vehicleIds) {
+        return vehicleIds.stream()
+                .distinct()
+                .map(PRICES::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Gets a random price to fill in for a given vehicle ID.
      *
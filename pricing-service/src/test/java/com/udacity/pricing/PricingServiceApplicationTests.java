@@ -11,6 +11,7 @@ import org.springframework.boot.web.server.LocalServerPort;
 import org.springframework.http.*;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.util.Arrays;
 import java.util.Objects;
 
 import static org.hamcrest.CoreMatchers.equalTo;
@@ -49,6 +50,18 @@ public class PricingServiceApplicationTests {
         assertThat(response.getStatusCode(), equalTo(HttpStatus.NOT_FOUND));
     }
 
+    @Test
+    public void batchRequestReturnsOnlyKnownPrices() {
+        ResponseEntity<Price[]> response = restTemplate.postForEntity(
+                "http://localhost:" + port + "/services/price/batch",
+                Arrays.asList(1L, 4L, 255L),
+                Price[].class
+        );
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(Objects.requireNonNull(response.getBody()).length, equalTo(2));
+        assertThat(response.getBody()[1].getVehicleId(), equalTo(4L));
+    }
+
     private String getTestUrlForVehicleId(int vehicleId) {
         return "http://localhost:" + port + "/services/price/" + vehicleId;
     }
@@ -0,0 +1,121 @@
+package com.udacity.tracing;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.context.Context;
+
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * Traces reactive code as well, which hops between threads, and so finds
+ * the current span in the subscriber context under the {@code Span} class,
+ * falling back to the span current on the subscribing thread.
+ */
+public class ReactiveTracer extends Tracer {
+
+    /**
+     * @param exporter   exports the spans ended
+     * @param sampleRate probability that a new trace is exported, between 0 and 1
+     */
+    public ReactiveTracer(SpanExporter exporter, double sampleRate) {
+        super(exporter, sampleRate);
+    }
+
+    /**
+     * @param span the span to carry
+     * @return a function putting the span in the subscriber context,
+     * or leaving the context as is when the span is null
+     */
+    public static Function<Context, Context> withSpan(Span span) {
+        return context -> span == null ? context : context.put(Span.class, span);
+    }
+
+    /**
+     * @return a function putting the span current on the subscribing thread
+     * in the subscriber context, unless the context already carries a span
+     */
+    public static Function<Context, Context> withCurrentSpan() {
+        return context -> context.hasKey(Span.class) ? context : withSpan(Span.current()).apply(context);
+    }
+
+    /**
+     * Traces a reactive operation from its subscription to its termination.
+     * The operation is created with its span current, so the work it does
+     * right away, such as a cache lookup loading a missing entry, belongs
+     * to the span as well.
+     *
+     * @param name      name of the span
+     * @param operation creates the Mono performing the operation, given its span to tag
+     * @param <T>       the type of the operation's result
+     * @return a Mono performing the operation within the span
+     */
+    public <T> Mono<T> trace(String name, Function<Span, Mono<T>> operation) {
+        return Mono.subscriberContext().flatMap(context -> {
+            Span span = this.nextSpan(name, Span.Kind.INTERNAL, parentOf(context));
+
+            Mono<T> traced;
+            try (Span.Scope ignored = span.makeCurrent()) {
+                traced = operation.apply(span);
+            } catch (RuntimeException e) {
+                span.error(e).end();
+                return Mono.error(e);
+            }
+
+            return traced
+                    .doOnError(span::error)
+                    .doOnCancel(() -> span.tag("cancelled", true))
+                    .doFinally(signal -> span.end())
+                    .subscriberContext(withSpan(span));
+        });
+    }
+
+    /**
+     * @see #trace(String, Function)
+     */
+    public <T> Flux<T> traceMany(String name, Function<Span, Flux<T>> operation) {
+        return Mono.subscriberContext().flatMapMany(context -> {
+            Span span = this.nextSpan(name, Span.Kind.INTERNAL, parentOf(context));
+
+            Flux<T> traced;
+            try (Span.Scope ignored = span.makeCurrent()) {
+                traced = operation.apply(span);
+            } catch (RuntimeException e) {
+                span.error(e).end();
+                return Flux.error(e);
+            }
+
+            return traced
+                    .doOnError(span::error)
+                    .doOnCancel(() -> span.tag("cancelled", true))
+                    .doFinally(signal -> span.end())
+                    .subscriberContext(withSpan(span));
+        });
+    }
+
+    /**
+     * Runs a blocking call on a scheduler with the subscriber's span current,
+     * so the spans it starts, such as the ones of the repositories, join the trace.
+     *
+     * @param callable  the blocking call
+     * @param scheduler where the call runs
+     * @param <T>       the type of the call's result
+     * @return a Mono emitting the call's result, or completing empty when it is null
+     */
+    public <T> Mono<T> fromCallable(Callable<T> callable, Scheduler scheduler) {
+        return Mono.subscriberContext().flatMap(context -> {
+            Span parent = context.getOrDefault(Span.class, Span.current());
+
+            return Mono.fromCallable(() -> {
+                try (Span.Scope ignored = Span.inScope(parent)) {
+                    return callable.call();
+                }
+            }).subscribeOn(scheduler);
+        });
+    }
+
+    private static TraceContext parentOf(Context context) {
+        return contextOf(context.getOrDefault(Span.class, Span.current()));
+    }
+}
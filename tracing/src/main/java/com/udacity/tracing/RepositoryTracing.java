@@ -0,0 +1,77 @@
+package com.udacity.tracing;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+
+import java.util.Arrays;
+
+/**
+ * Records a client span for every call to the Spring Data repositories made
+ * within a trace, named after the repository and method, such as
+ * {@code CarRepository.findById}. Calls made outside of any span, such as
+ * the ones of the application startup, are not traced.
+ */
+public class RepositoryTracing implements BeanPostProcessor {
+
+    private final ObjectProvider<Tracer> tracer;
+
+    /**
+     * @param tracer starts the spans; looked up on the first call, as post
+     *               processors are created before the other beans
+     */
+    public RepositoryTracing(ObjectProvider<Tracer> tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof Repository && bean instanceof Advised) {
+            Advised repository = (Advised) bean;
+            String name = Arrays.stream(repository.getProxiedInterfaces())
+                    .filter(Repository.class::isAssignableFrom)
+                    .filter(type -> !type.getName().startsWith("org.springframework."))
+                    .findFirst()
+                    .map(Class::getSimpleName)
+                    .orElse(beanName);
+
+            repository.addAdvice(0, new RepositorySpans(name));
+        }
+
+        return bean;
+    }
+
+    private final class RepositorySpans implements MethodInterceptor {
+        private final String repository;
+
+        private RepositorySpans(String repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Span parent = Span.current();
+            if (parent == null) {
+                return invocation.proceed();
+            }
+
+            Span span = RepositoryTracing.this.tracer.getObject().nextSpan(
+                    this.repository + "." + invocation.getMethod().getName(),
+                    Span.Kind.CLIENT,
+                    parent.getContext());
+            span.tag("db.type", "sql");
+
+            try (Span.Scope ignored = span.makeCurrent()) {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                span.error(e);
+                throw e;
+            } finally {
+                span.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.udacity.tracing;
+
+import org.slf4j.MDC;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A timed operation within a trace: an incoming request, a call to another
+ * service or the database, or a step within the service. The span current
+ * on a thread is the parent of the spans started on it, and its IDs are put
+ * in the logging context as {@code traceId} and {@code spanId}, so log lines
+ * can be matched with the trace they belong to.
+ */
+public final class Span {
+
+    public enum Kind {
+        /**
+         * Handles a request received from another service or a client.
+         */
+        SERVER,
+        /**
+         * Waits for a request sent to another service or the database.
+         */
+        CLIENT,
+        /**
+         * Runs within the service.
+         */
+        INTERNAL
+    }
+
+    /**
+     * Restores the span current before {@link Span#makeCurrent()} or {@link Span#inScope(Span)}.
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private final SpanExporter exporter;
+    private final TraceContext context;
+    private final String parentId;
+    private final Kind kind;
+    private final long startMicros;
+    private final long startNanos;
+    private final Map<String, String> tags = new ConcurrentHashMap<>();
+    private final AtomicBoolean ended = new AtomicBoolean();
+    private volatile String name;
+    private volatile long durationMicros;
+
+    Span(SpanExporter exporter, String name, Kind kind, TraceContext context, String parentId) {
+        this.exporter = exporter;
+        this.name = name;
+        this.kind = kind;
+        this.context = context;
+        this.parentId = parentId;
+        this.startMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * @return the span current on this thread, or null outside of any span
+     */
+    public static Span current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes a span current on this thread until the returned scope is closed.
+     *
+     * @param span the span to make current, or null to leave this thread outside of any span
+     * @return the scope to close once the span is no longer current
+     */
+    public static Scope inScope(Span span) {
+        Span previous = CURRENT.get();
+        if (previous == span) {
+            return () -> { };
+        }
+
+        setCurrent(span);
+        return () -> setCurrent(previous);
+    }
+
+    /**
+     * @return the scope to close once this span is no longer current
+     * @see #inScope(Span)
+     */
+    public Scope makeCurrent() {
+        return inScope(this);
+    }
+
+    /**
+     * Renames the span, for names only known once the operation is under way.
+     */
+    public Span name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    /**
+     * @param key   name of the tag
+     * @param value value of the tag; the tag is left out when null
+     */
+    public Span tag(String key, Object value) {
+        if (value != null) {
+            this.tags.put(key, String.valueOf(value));
+        }
+        return this;
+    }
+
+    /**
+     * Marks the span as failed.
+     */
+    public Span error(Throwable e) {
+        return this.tag("error", e.toString());
+    }
+
+    /**
+     * Records the duration of the span and exports it if its trace is sampled.
+     * Only the first call has an effect.
+     */
+    public void end() {
+        if (!this.ended.compareAndSet(false, true)) {
+            return;
+        }
+
+        this.durationMicros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - this.startNanos));
+
+        if (this.context.isSampled()) {
+            this.exporter.export(this);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public TraceContext getContext() {
+        return context;
+    }
+
+    /**
+     * @return the ID of the parent span, or null for the first span of a trace
+     */
+    public String getParentId() {
+        return parentId;
+    }
+
+    /**
+     * @return when the span started, in microseconds since the epoch
+     */
+    public long getStartMicros() {
+        return startMicros;
+    }
+
+    /**
+     * @return how long the span lasted, in microseconds, or 0 until it ends
+     */
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public Map<String, String> getTags() {
+        return Collections.unmodifiableMap(tags);
+    }
+
+    private static void setCurrent(Span span) {
+        if (span == null) {
+            CURRENT.remove();
+            MDC.remove("traceId");
+            MDC.remove("spanId");
+        } else {
+            CURRENT.set(span);
+            MDC.put("traceId", span.context.getTraceId());
+            MDC.put("spanId", span.context.getSpanId());
+        }
+    }
+}
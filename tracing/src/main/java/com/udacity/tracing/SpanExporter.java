@@ -0,0 +1,200 @@
+package com.udacity.tracing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports the spans ended in the Zipkin v2 JSON format, understood by Zipkin
+ * itself and by the OpenTelemetry collector. Spans are either logged, one
+ * line per span, or queued and written in the background to a file, one
+ * line per span, or to a collector, every {@code tracing.flush-interval-ms}.
+ * Spans are dropped rather than slowing requests down when the queue is full.
+ */
+public class SpanExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(SpanExporter.class);
+    private static final Logger spans = LoggerFactory.getLogger("tracing.spans");
+
+    public enum Target {
+        /**
+         * Spans are not exported.
+         */
+        NONE,
+        /**
+         * Spans are logged at INFO level by the {@code tracing.spans} logger.
+         */
+        LOG,
+        /**
+         * Spans are appended to {@code tracing.file}.
+         */
+        FILE,
+        /**
+         * Spans are posted to the collector listening at {@code tracing.zipkin.endpoint}.
+         */
+        ZIPKIN
+    }
+
+    private final Target target;
+    private final String serviceName;
+    private final Path file;
+    private final URI endpoint;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BlockingQueue<String> queue;
+    private final Counter dropped;
+    private final HttpClient client;
+    private final ScheduledExecutorService flusher;
+    private boolean failing;
+
+    /**
+     * @param target          where spans are exported
+     * @param serviceName     name of this service in the spans
+     * @param file            file the spans are appended to by the FILE target
+     * @param endpoint        URL of the collector the spans are posted to by the ZIPKIN target
+     * @param queueSize       spans waiting to be written at most
+     * @param flushIntervalMs how often queued spans are written
+     * @param registry        where the count of spans dropped is registered
+     */
+    public SpanExporter(Target target, String serviceName, String file, String endpoint,
+                        int queueSize, long flushIntervalMs, MeterRegistry registry) {
+        this.target = target;
+        this.serviceName = serviceName;
+        this.file = Paths.get(file);
+        this.endpoint = URI.create(endpoint);
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.dropped = Counter.builder("tracing.spans.dropped")
+                .description("Spans not exported because too many were waiting to be written")
+                .register(registry);
+
+        if (target == Target.FILE || target == Target.ZIPKIN) {
+            this.client = target == Target.ZIPKIN
+                    ? HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build()
+                    : null;
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "span-exporter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.client = null;
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * @param span the span ended
+     */
+    void export(Span span) {
+        if (this.target == Target.NONE || (this.target == Target.LOG && !spans.isInfoEnabled())) {
+            return;
+        }
+
+        String json;
+        try {
+            json = this.objectMapper.writeValueAsString(this.toZipkin(span));
+        } catch (JsonProcessingException e) {
+            log.warn("Could not export span {}", span.getName(), e);
+            return;
+        }
+
+        if (this.target == Target.LOG) {
+            spans.info(json);
+        } else if (!this.queue.offer(json)) {
+            this.dropped.increment();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (this.flusher != null) {
+            this.flusher.shutdown();
+            this.flush();
+        }
+    }
+
+    private Map<String, Object> toZipkin(Span span) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("traceId", span.getContext().getTraceId());
+        json.put("id", span.getContext().getSpanId());
+        if (span.getParentId() != null) {
+            json.put("parentId", span.getParentId());
+        }
+        json.put("name", span.getName());
+        if (span.getKind() != Span.Kind.INTERNAL) {
+            json.put("kind", span.getKind().name());
+        }
+        json.put("timestamp", span.getStartMicros());
+        json.put("duration", span.getDurationMicros());
+        json.put("localEndpoint", Map.of("serviceName", this.serviceName));
+        if (!span.getTags().isEmpty()) {
+            json.put("tags", span.getTags());
+        }
+        return json;
+    }
+
+    private synchronized void flush() {
+        List<String> batch = new ArrayList<>();
+
+        while (this.queue.drainTo(batch, 1000) > 0) {
+            try {
+                if (this.target == Target.FILE) {
+                    Files.write(this.file, batch, StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                } else {
+                    this.post(batch);
+                }
+                this.failing = false;
+            } catch (IOException | RuntimeException e) {
+                // logged once until spans are exported again, not on every flush
+                if (!this.failing) {
+                    log.warn("Could not export {} spans: {}", batch.size(), e.toString());
+                    this.failing = true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            batch.clear();
+        }
+    }
+
+    private void post(List<String> batch) throws IOException, InterruptedException {
+        HttpResponse<Void> response = this.client.send(HttpRequest.newBuilder(this.endpoint)
+                        .header("Content-Type", "application/json")
+                        .timeout(Duration.ofSeconds(10))
+                        .POST(HttpRequest.BodyPublishers.ofString("[" + String.join(",", batch) + "]"))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+
+        if (response.statusCode() >= 300) {
+            throw new IOException(this.endpoint + " answered with status " + response.statusCode());
+        }
+    }
+}
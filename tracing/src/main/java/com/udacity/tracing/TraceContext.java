@@ -0,0 +1,117 @@
+package com.udacity.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Identifies a span within a trace, as carried between services by the
+ * W3C {@code traceparent} header: {@code 00-<trace id>-<span id>-<flags>}.
+ */
+public final class TraceContext {
+
+    private static final Pattern TRACEPARENT =
+            Pattern.compile("([0-9a-f]{2})-([0-9a-f]{32})-([0-9a-f]{16})-([0-9a-f]{2})(-.*)?");
+    private static final String INVALID_TRACE_ID = "00000000000000000000000000000000";
+    private static final String INVALID_SPAN_ID = "0000000000000000";
+
+    private final String traceId;
+    private final String spanId;
+    private final boolean sampled;
+
+    private TraceContext(String traceId, String spanId, boolean sampled) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.sampled = sampled;
+    }
+
+    /**
+     * @param sampled whether the spans of the trace are exported
+     * @return the context of the first span of a new trace
+     */
+    public static TraceContext newTrace(boolean sampled) {
+        String traceId;
+        do {
+            traceId = randomId() + randomId();
+        } while (traceId.equals(INVALID_TRACE_ID));
+
+        return new TraceContext(traceId, newSpanId(), sampled);
+    }
+
+    /**
+     * Reads a {@code traceparent} header. Versions after 00 are read as far
+     * as version 00 goes, as the specification asks.
+     *
+     * @param traceparent value of the header, possibly null
+     * @return the context of the remote parent span, or null when the header
+     * is missing or invalid
+     */
+    public static TraceContext parse(String traceparent) {
+        if (traceparent == null) {
+            return null;
+        }
+
+        Matcher matcher = TRACEPARENT.matcher(traceparent.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+
+        String version = matcher.group(1);
+        if (version.equals("ff") || (version.equals("00") && matcher.group(5) != null)) {
+            return null;
+        }
+
+        String traceId = matcher.group(2);
+        String spanId = matcher.group(3);
+        if (traceId.equals(INVALID_TRACE_ID) || spanId.equals(INVALID_SPAN_ID)) {
+            return null;
+        }
+
+        return new TraceContext(traceId, spanId, (Integer.parseInt(matcher.group(4), 16) & 1) == 1);
+    }
+
+    /**
+     * @return the context of a span child of this one
+     */
+    public TraceContext newChild() {
+        return new TraceContext(this.traceId, newSpanId(), this.sampled);
+    }
+
+    /**
+     * @return the value of the {@code traceparent} header sent to the services called within this span
+     */
+    public String toTraceparent() {
+        return "00-" + this.traceId + "-" + this.spanId + (this.sampled ? "-01" : "-00");
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    @Override
+    public String toString() {
+        return this.toTraceparent();
+    }
+
+    private static String newSpanId() {
+        String spanId;
+        do {
+            spanId = randomId();
+        } while (spanId.equals(INVALID_SPAN_ID));
+
+        return spanId;
+    }
+
+    private static String randomId() {
+        String hex = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        return INVALID_SPAN_ID.substring(hex.length()) + hex;
+    }
+}
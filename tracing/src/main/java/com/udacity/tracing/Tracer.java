@@ -0,0 +1,62 @@
+package com.udacity.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Starts spans as children of the span current on the thread they start on.
+ * A trace started here, rather than by a request carrying a {@code traceparent},
+ * is sampled with the probability {@code tracing.sample-rate}.
+ *
+ * @see ReactiveTracer
+ */
+public class Tracer {
+
+    private final SpanExporter exporter;
+    private final double sampleRate;
+
+    /**
+     * @param exporter   exports the spans ended
+     * @param sampleRate probability that a new trace is exported, between 0 and 1
+     */
+    public Tracer(SpanExporter exporter, double sampleRate) {
+        this.exporter = exporter;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * @param name   name of the span
+     * @param kind   kind of the span
+     * @param parent the parent span, local or remote, or null to start a new trace
+     * @return the started span; it must be ended
+     */
+    public Span nextSpan(String name, Span.Kind kind, TraceContext parent) {
+        return parent == null
+                ? new Span(this.exporter, name, kind,
+                        TraceContext.newTrace(ThreadLocalRandom.current().nextDouble() < this.sampleRate), null)
+                : new Span(this.exporter, name, kind, parent.newChild(), parent.getSpanId());
+    }
+
+    /**
+     * Runs a blocking operation within a span child of the current one.
+     *
+     * @param name      name of the span
+     * @param operation the operation, given its span to tag
+     */
+    public void run(String name, Consumer<Span> operation) {
+        Span span = this.nextSpan(name, Span.Kind.INTERNAL, contextOf(Span.current()));
+
+        try (Span.Scope ignored = span.makeCurrent()) {
+            operation.accept(span);
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    static TraceContext contextOf(Span span) {
+        return span == null ? null : span.getContext();
+    }
+}
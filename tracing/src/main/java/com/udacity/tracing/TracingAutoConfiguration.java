@@ -0,0 +1,95 @@
+package com.udacity.tracing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.Repository;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.servlet.HandlerMapping;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sets tracing up in every service depending on this module: the spans are
+ * exported as configured by the {@code tracing.*} properties, and the requests
+ * received, the requests sent by the web clients built by Spring Boot and the
+ * calls to the Spring Data repositories are traced when the service has them.
+ */
+@Configuration
+public class TracingAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SpanExporter spanExporter(
+            @Value("${tracing.exporter:LOG}") SpanExporter.Target target,
+            @Value("${spring.application.name:application}") String serviceName,
+            @Value("${tracing.file:spans.json}") String file,
+            @Value("${tracing.zipkin.endpoint:http://localhost:9411/api/v2/spans}") String endpoint,
+            @Value("${tracing.queue-size:10000}") int queueSize,
+            @Value("${tracing.flush-interval-ms:1000}") long flushIntervalMs,
+            ObjectProvider<MeterRegistry> registry
+    ) {
+        return new SpanExporter(target, serviceName, file, endpoint, queueSize, flushIntervalMs,
+                registry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    @Configuration
+    @ConditionalOnMissingClass("reactor.core.publisher.Mono")
+    static class BlockingTracerConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public Tracer tracer(SpanExporter exporter, @Value("${tracing.sample-rate:1.0}") double sampleRate) {
+            return new Tracer(exporter, sampleRate);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(Mono.class)
+    static class ReactiveTracerConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(Tracer.class)
+        public ReactiveTracer tracer(SpanExporter exporter, @Value("${tracing.sample-rate:1.0}") double sampleRate) {
+            return new ReactiveTracer(exporter, sampleRate);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnClass(HandlerMapping.class)
+    static class ServletTracingConfiguration {
+
+        @Bean
+        public TracingFilter tracingFilter(Tracer tracer) {
+            return new TracingFilter(tracer);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(WebClient.class)
+    static class WebClientTracingConfiguration {
+
+        @Bean
+        public TracingExchangeFilter tracingExchangeFilter(Tracer tracer) {
+            return new TracingExchangeFilter(tracer);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(Repository.class)
+    static class RepositoryTracingConfiguration {
+
+        // static, as post processors are created before the configuration holding them
+        @Bean
+        public static RepositoryTracing repositoryTracing(ObjectProvider<Tracer> tracer) {
+            return new RepositoryTracing(tracer);
+        }
+    }
+}
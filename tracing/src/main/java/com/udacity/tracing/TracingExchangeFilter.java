@@ -0,0 +1,60 @@
+package com.udacity.tracing;
+
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sends every request of the web clients built by Spring Boot, such as the
+ * pricing and maps clients, within a client span, and passes the span on
+ * to the service called in the {@code traceparent} header. The span lasts
+ * until the response status and headers are received.
+ */
+public class TracingExchangeFilter implements ExchangeFilterFunction, WebClientCustomizer {
+
+    private final Tracer tracer;
+
+    public TracingExchangeFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public void customize(WebClient.Builder webClientBuilder) {
+        webClientBuilder.filter(this);
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        // requests are often built while the caller's span is current, such as
+        // when a cache loads a missing entry, and sent from another thread
+        Span current = Span.current();
+
+        return Mono.subscriberContext().flatMap(context -> {
+            Span parent = context.getOrDefault(Span.class, current);
+            Span span = this.tracer.nextSpan(
+                    request.method().name() + " " + request.url().getPath(),
+                    Span.Kind.CLIENT,
+                    parent == null ? null : parent.getContext());
+            span.tag("http.method", request.method().name()).tag("http.url", request.url());
+
+            ClientRequest traced = ClientRequest.from(request)
+                    .headers(headers -> headers.set(TracingFilter.TRACEPARENT, span.getContext().toTraceparent()))
+                    .build();
+
+            return next.exchange(traced)
+                    .doOnNext(response -> {
+                        span.tag("http.status_code", response.rawStatusCode());
+                        if (response.rawStatusCode() >= 500) {
+                            span.tag("error", "status " + response.rawStatusCode());
+                        }
+                    })
+                    .doOnError(span::error)
+                    .doOnCancel(() -> span.tag("cancelled", true))
+                    .doFinally(signal -> span.end());
+        });
+    }
+}
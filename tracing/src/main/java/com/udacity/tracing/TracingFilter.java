@@ -0,0 +1,92 @@
+package com.udacity.tracing;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Handles every request within a server span, continuing the trace of the
+ * {@code traceparent} header when the request carries one. The span is named
+ * after the route matched, and lasts until the response is complete, including
+ * for the requests answered asynchronously. Actuator endpoints are not traced.
+ */
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TracingFilter extends OncePerRequestFilter {
+
+    static final String TRACEPARENT = "traceparent";
+
+    private final Tracer tracer;
+
+    public TracingFilter(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + "/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Span span = this.tracer.nextSpan(request.getMethod(), Span.Kind.SERVER,
+                TraceContext.parse(request.getHeader(TRACEPARENT)));
+        span.tag("http.method", request.getMethod()).tag("http.path", request.getRequestURI());
+
+        try (Span.Scope ignored = span.makeCurrent()) {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        end(span, request, response);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        span.tag("error", "timeout");
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        if (event.getThrowable() != null) {
+                            span.error(event.getThrowable());
+                        }
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                end(span, request, response);
+            }
+        }
+    }
+
+    private static void end(Span span, HttpServletRequest request, HttpServletResponse response) {
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (route != null) {
+            span.name(request.getMethod() + " " + route);
+        }
+
+        span.tag("http.status_code", response.getStatus());
+        if (response.getStatus() >= 500) {
+            span.tag("error", "status " + response.getStatus());
+        }
+        span.end();
+    }
+}
@@ -0,0 +1,68 @@
+package com.udacity.tracing;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Implements testing of the TraceContext class.
+ */
+public class TraceContextTest {
+
+    private static final String TRACEPARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+    /**
+     * Tests that a traceparent header is read and written back unchanged.
+     */
+    @Test
+    public void traceparentRoundTrips() {
+        TraceContext context = TraceContext.parse(TRACEPARENT);
+
+        assertThat(context.getTraceId(), equalTo("4bf92f3577b34da6a3ce929d0e0e4736"));
+        assertThat(context.getSpanId(), equalTo("00f067aa0ba902b7"));
+        assertThat(context.isSampled(), equalTo(true));
+        assertThat(context.toTraceparent(), equalTo(TRACEPARENT));
+    }
+
+    /**
+     * Tests that malformed headers and invalid IDs start a new trace instead.
+     */
+    @Test
+    public void invalidTraceparentIsIgnored() {
+        assertThat(TraceContext.parse(null), nullValue());
+        assertThat(TraceContext.parse("not a traceparent"), nullValue());
+        assertThat(TraceContext.parse("00-00000000000000000000000000000000-00f067aa0ba902b7-01"), nullValue());
+        assertThat(TraceContext.parse("00-4bf92f3577b34da6a3ce929d0e0e4736-0000000000000000-01"), nullValue());
+        assertThat(TraceContext.parse("ff-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01"), nullValue());
+        assertThat(TraceContext.parse(TRACEPARENT + "-extra"), nullValue());
+    }
+
+    /**
+     * Tests that a later version is read as far as version 00 goes.
+     */
+    @Test
+    public void laterVersionIsRead() {
+        TraceContext context = TraceContext.parse("01-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00-extra");
+
+        assertThat(context.getTraceId(), equalTo("4bf92f3577b34da6a3ce929d0e0e4736"));
+        assertThat(context.isSampled(), equalTo(false));
+    }
+
+    /**
+     * Tests that a child keeps the trace and its sampling but gets its own span ID.
+     */
+    @Test
+    public void childStaysInTrace() {
+        TraceContext parent = TraceContext.parse(TRACEPARENT);
+        TraceContext child = parent.newChild();
+
+        assertThat(child.getTraceId(), equalTo(parent.getTraceId()));
+        assertThat(child.getSpanId(), not(equalTo(parent.getSpanId())));
+        assertThat(child.getSpanId().length(), equalTo(16));
+        assertThat(child.isSampled(), equalTo(true));
+        assertThat(TraceContext.parse(TraceContext.newTrace(true).toTraceparent()), not(nullValue()));
+    }
+}
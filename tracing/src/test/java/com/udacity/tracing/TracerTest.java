@@ -0,0 +1,100 @@
+package com.udacity.tracing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Implements testing of the ReactiveTracer and TracingExchangeFilter classes.
+ */
+public class TracerTest {
+
+    private final ReactiveTracer tracer = new ReactiveTracer(
+            new SpanExporter(SpanExporter.Target.NONE, "test", "spans.json", "http://localhost:9411/api/v2/spans",
+                    100, 1000, new SimpleMeterRegistry()),
+            1.0);
+    private final Scheduler scheduler = Schedulers.newSingle("tracer-test");
+
+    @After
+    public void disposeScheduler() {
+        this.scheduler.dispose();
+    }
+
+    /**
+     * Tests that a span started on another thread than the subscriber's
+     * is a child of the span current when the subscriber subscribed.
+     */
+    @Test
+    public void spanFollowsThreadHops() {
+        Span request = this.tracer.nextSpan("request", Span.Kind.SERVER, null);
+        AtomicReference<Span> lookup = new AtomicReference<>();
+
+        try (Span.Scope ignored = request.makeCurrent()) {
+            Mono.delay(Duration.ofMillis(10))
+                    .flatMap(tick -> this.tracer.trace("lookup", span -> {
+                        lookup.set(span);
+                        return Mono.just(tick);
+                    }))
+                    .subscriberContext(ReactiveTracer.withCurrentSpan())
+                    .block();
+        }
+
+        assertThat(lookup.get().getContext().getTraceId(), equalTo(request.getContext().getTraceId()));
+        assertThat(lookup.get().getParentId(), equalTo(request.getContext().getSpanId()));
+        assertThat(lookup.get().getDurationMicros() > 0, equalTo(true));
+    }
+
+    /**
+     * Tests that a blocking call run on a scheduler sees the subscriber's span as current.
+     */
+    @Test
+    public void callableRunsWithinSubscriberSpan() {
+        Span request = this.tracer.nextSpan("request", Span.Kind.SERVER, null);
+
+        Span current = this.tracer.fromCallable(Span::current, this.scheduler)
+                .subscriberContext(ReactiveTracer.withSpan(request))
+                .block();
+
+        assertThat(current, sameInstance(request));
+    }
+
+    /**
+     * Tests that a request is sent with the traceparent of a client span
+     * child of the caller's span.
+     */
+    @Test
+    public void requestCarriesTraceparent() {
+        Span lookup = this.tracer.nextSpan("lookup", Span.Kind.INTERNAL, null);
+        AtomicReference<ClientRequest> sent = new AtomicReference<>();
+
+        new TracingExchangeFilter(this.tracer)
+                .filter(ClientRequest.create(HttpMethod.GET, URI.create("http://localhost/services/price/1")).build(),
+                        request -> {
+                            sent.set(request);
+                            return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+                        })
+                .subscriberContext(ReactiveTracer.withSpan(lookup))
+                .block();
+
+        TraceContext context = TraceContext.parse(sent.get().headers().getFirst(TracingFilter.TRACEPARENT));
+        assertThat(context.getTraceId(), equalTo(lookup.getContext().getTraceId()));
+        assertThat(context.getSpanId(), not(equalTo(lookup.getContext().getSpanId())));
+        assertThat(context.isSampled(), equalTo(true));
+    }
+}
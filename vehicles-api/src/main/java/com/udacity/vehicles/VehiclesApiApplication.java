@@ -1,16 +1,23 @@
 package com.udacity.vehicles;
 
+import com.udacity.vehicles.client.CircuitBreaker;
+import com.udacity.vehicles.client.DownstreamGuard;
+import com.udacity.vehicles.client.HedgedWebClients;
 import com.udacity.vehicles.domain.manufacturer.Manufacturer;
 import com.udacity.vehicles.domain.manufacturer.ManufacturerRepository;
-import org.modelmapper.ModelMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.time.Duration;
+
 /**
  * Launches a Spring Boot application for the Vehicles API,
  * initializes the car manufacturers in the database,
@@ -40,29 +47,79 @@ public class VehiclesApiApplication {
         };
     }
 
+    /**
+     * Lets cars be written in full when no response asks for a subset of their properties.
+     * @return customizer registering a filter provider tolerating unregistered filters
+     */
     @Bean
-    public ModelMapper modelMapper() {
-        return new ModelMapper();
+    public Jackson2ObjectMapperBuilderCustomizer carFieldsFilter() {
+        return builder -> builder.filters(new SimpleFilterProvider().setFailOnUnknownId(false));
     }
 
     /**
-     * Web Client for the maps (location) API
-     * @param endpoint where to communicate for the maps API
-     * @return created maps endpoint
+     * Web Clients for the instances of the maps (location) API
+     * @param endpoints comma separated base URLs of the maps API instances
+     * @param percentile latency percentile after which a lookup is hedged
+     * @param maxHedgePercent percentage of the lookups that may be hedged
+     * @param minDelayMs shortest wait before hedging a lookup
+     * @param builder builds the web clients, tracing their requests
+     * @return created maps endpoints
      */
     @Bean(name="maps")
-    public WebClient webClientMaps(@Value("${maps.endpoint}") String endpoint) {
-        return WebClient.create(endpoint);
+    public HedgedWebClients webClientMaps(
+            @Value("${maps.endpoint}") String endpoints,
+            @Value("${maps.hedge.percentile:95}") int percentile,
+            @Value("${maps.hedge.max-percent:5}") int maxHedgePercent,
+            @Value("${maps.hedge.min-delay-ms:10}") long minDelayMs,
+            WebClient.Builder builder,
+            MeterRegistry registry
+    ) {
+        return new HedgedWebClients("maps", HedgedWebClients.create(endpoints, builder), percentile, maxHedgePercent,
+                Duration.ofMillis(minDelayMs), registry);
     }
 
     /**
      * Web Client for the pricing API
      * @param endpoint where to communicate for the pricing API
+     * @param builder builds the web client, tracing its requests
      * @return created pricing endpoint
      */
     @Bean(name="pricing")
-    public WebClient webClientPricing(@Value("${pricing.endpoint}") String endpoint) {
-        return WebClient.create(endpoint);
+    public WebClient webClientPricing(@Value("${pricing.endpoint}") String endpoint, WebClient.Builder builder) {
+        return builder.baseUrl(endpoint).build();
+    }
+
+    /**
+     * Timeout, bulkhead and circuit breaker around the calls to the maps API
+     * @return guard of the maps API
+     */
+    @Bean
+    public DownstreamGuard mapsGuard(
+            @Value("${maps.timeout-ms:2000}") long timeoutMs,
+            @Value("${maps.bulkhead.max-concurrent-calls:64}") int maxConcurrentCalls,
+            @Value("${maps.circuit-breaker.window-size:20}") int windowSize,
+            @Value("${maps.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+            @Value("${maps.circuit-breaker.open-seconds:10}") long openSeconds,
+            MeterRegistry registry
+    ) {
+        return new DownstreamGuard("maps", Duration.ofMillis(timeoutMs), maxConcurrentCalls,
+                new CircuitBreaker(windowSize, failureRateThreshold, Duration.ofSeconds(openSeconds)), registry);
     }
 
+    /**
+     * Timeout, bulkhead and circuit breaker around the calls to the pricing API
+     * @return guard of the pricing API
+     */
+    @Bean
+    public DownstreamGuard pricingGuard(
+            @Value("${pricing.timeout-ms:1000}") long timeoutMs,
+            @Value("${pricing.bulkhead.max-concurrent-calls:64}") int maxConcurrentCalls,
+            @Value("${pricing.circuit-breaker.window-size:20}") int windowSize,
+            @Value("${pricing.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+            @Value("${pricing.circuit-breaker.open-seconds:10}") long openSeconds,
+            MeterRegistry registry
+    ) {
+        return new DownstreamGuard("pricing", Duration.ofMillis(timeoutMs), maxConcurrentCalls,
+                new CircuitBreaker(windowSize, failureRateThreshold, Duration.ofSeconds(openSeconds)), registry);
+    }
 }
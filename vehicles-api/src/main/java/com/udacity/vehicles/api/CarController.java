@@ -1,19 +1,23 @@
 package com.udacity.vehicles.api;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarSearchCriteria;
+import com.udacity.vehicles.domain.car.CarSummary;
 import com.udacity.vehicles.service.*;
 import io.swagger.annotations.*;
+import org.springframework.data.domain.Slice;
 import org.springframework.hateoas.*;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.*;
 import java.net.*;
-import java.util.List;
-import java.util.stream.Collectors;
-
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
 
 /**
  * Implements a REST-based controller for the Vehicles API.
@@ -22,49 +26,266 @@ import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
 @RequestMapping("/cars")
 class CarController {
 
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+    static final String NDJSON = "application/x-ndjson";
+    static final String MERGE_PATCH = "application/merge-patch+json";
+    static final String WAIT_FOR_ENRICHMENT = "X-Wait-For-Enrichment";
+    static final double MAX_RADIUS_KM = 500;
+
     private final CarService carService;
+    private final CarBulkService carBulkService;
     private final CarResourceAssembler assembler;
+    private final ObjectMapper objectMapper;
 
-    CarController(CarService carService, CarResourceAssembler assembler) {
+    CarController(CarService carService, CarBulkService carBulkService,
+                  CarResourceAssembler assembler, ObjectMapper objectMapper) {
         this.carService = carService;
+        this.carBulkService = carBulkService;
         this.assembler = assembler;
+        this.objectMapper = objectMapper;
     }
 
     /**
-     * Creates a list to store any vehicles.
+     * Lists vehicles one page at a time, ordered by ID. The page carries an ETag
+     * of the cars in it; when it matches If-None-Match, 304 Not Modified is
+     * returned without calling the pricing and maps services. A page in which
+     * a price or an address fell back carries no ETag.
      *
-     * @return list of vehicles
+     * @param after   opaque cursor taken from the "next" link of the previous page
+     * @param limit   maximum number of vehicles in the page (capped at {@value #MAX_PAGE_SIZE})
+     * @param fields  comma separated properties to include, all of them when absent;
+     *                the pricing and maps services are only called for price and location
+     * @param view    the requested view, other than the summary one, part of the ETag
+     * @param request the request, checked for conditional headers
+     * @return page of vehicles, linking to the next page when there is one,
+     * or 304 Not Modified when the client's copy is still current
      */
+    @ApiResponses(value = {
+        @ApiResponse(code = 400, message = InvalidCursorException.INVALID_CURSOR_MESSAGE
+                + " or " + InvalidFieldsException.INVALID_FIELDS_MESSAGE)
+    })
     @GetMapping
-    Resources<Resource<Car>> list() {
-        List<Resource<Car>> resources = this.carService.list()
-                .stream()
-                .map(assembler::toResource)
-                .collect(Collectors.toList());
+    ResponseEntity<Resources<Resource<Car>>> list(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(name = CarFields.PARAMETER, required = false) String fields,
+            @RequestParam(required = false) String view,
+            HttpServletRequest request
+    ) {
+        int pageSize = pageSize(limit);
+        CarFields carFields = CarFields.parse(fields);
+        Slice<Car> cars = this.carService.list(CarCursor.decode(after), pageSize, Enrichment.NONE);
+
+        String eTag = CarETags.of(cars, carFields, view);
+        if (CarETags.isNotModified(request, eTag, -1)) {
+            return CarETags.notModified(eTag, -1);
+        }
+
+        boolean complete = this.carService.enrichAll(cars.getContent(), carFields.enrichments());
+
+        return CarETags.ok(assembler.toResources(cars, after, pageSize), eTag, -1, complete);
+    }
+
+    /**
+     * Lists summaries of vehicles one page at a time, ordered by ID, as needed
+     * by grids and search pages. Neither price nor location is included.
+     *
+     * @param after opaque cursor taken from the "next" link of the previous page
+     * @param limit maximum number of vehicles in the page (capped at {@value #MAX_PAGE_SIZE})
+     * @return page of vehicle summaries, linking to the next page when there is one
+     */
+    @ApiResponses(value = {
+        @ApiResponse(code = 400, message = InvalidCursorException.INVALID_CURSOR_MESSAGE)
+    })
+    @GetMapping(params = "view=summary")
+    Resources<Resource<CarSummary>> listSummaries(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit
+    ) {
+        int pageSize = pageSize(limit);
+        Slice<CarSummary> cars = this.carService.listSummaries(CarCursor.decode(after), pageSize);
+
+        return assembler.toSummaryResources(cars, after, pageSize);
+    }
+
+    /**
+     * Searches vehicles matching every given filter, one page at a time, ordered by ID.
+     *
+     * @param criteria filters on manufacturer code, model, body, fuel type and
+     *                 condition, and inclusive ranges on model year, production
+     *                 year and mileage
+     * @param after    opaque cursor taken from the "next" link of the previous page
+     * @param limit    maximum number of vehicles in the page (capped at {@value #MAX_PAGE_SIZE})
+     * @param fields   comma separated properties to include, all of them when absent
+     * @return page of matching vehicles, linking to the next page when there is one
+     */
+    @ApiResponses(value = {
+        @ApiResponse(code = 400, message = InvalidCursorException.INVALID_CURSOR_MESSAGE
+                + " or " + InvalidFieldsException.INVALID_FIELDS_MESSAGE)
+    })
+    @GetMapping("/search")
+    Resources<Resource<Car>> search(
+            CarSearchCriteria criteria,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(name = CarFields.PARAMETER, required = false) String fields
+    ) {
+        int pageSize = pageSize(limit);
+        Slice<Car> cars = this.carService.search(
+                criteria, CarCursor.decode(after), pageSize, CarFields.parse(fields).enrichments());
+
+        return assembler.toResources(cars, after, pageSize);
+    }
+
+    /**
+     * Searches vehicles by free text, tolerating typos.
+     *
+     * @param q      words the vehicles must match, such as "bmw x5 diesel black",
+     *               in model, body, engine, fuel type, external color or manufacturer name
+     * @param limit  maximum number of vehicles returned (capped at {@value #MAX_PAGE_SIZE})
+     * @param fields comma separated properties to include, all of them when absent
+     * @return the matching vehicles, best match first
+     */
+    @ApiResponses(value = {
+        @ApiResponse(code = 400, message = InvalidFieldsException.INVALID_FIELDS_MESSAGE)
+    })
+    @GetMapping("/search/text")
+    Resources<Resource<Car>> searchText(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(name = CarFields.PARAMETER, required = false) String fields
+    ) {
+        return assembler.toResources(
+                this.carService.searchText(q, pageSize(limit), CarFields.parse(fields).enrichments())
+        );
+    }
+
+    /**
+     * Finds the vehicles nearest to a point. With a radius, only vehicles within
+     * it are returned; without, the nearest vehicles are returned however far.
+     *
+     * @param lat      latitude of the point
+     * @param lon      longitude of the point
+     * @param radiusKm maximum distance in kilometers (at most {@value #MAX_RADIUS_KM}), if any
+     * @param limit    maximum number of vehicles returned (capped at {@value #MAX_PAGE_SIZE})
+     * @param fields   comma separated properties to include, all of them when absent
+     * @return the vehicles found, nearest first
+     */
+    @ApiResponses(value = {
+        @ApiResponse(code = 400, message = InvalidLocationException.INVALID_LOCATION_MESSAGE
+                + " or " + InvalidFieldsException.INVALID_FIELDS_MESSAGE)
+    })
+    @GetMapping("/near")
+    Resources<Resource<Car>> near(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(name = CarFields.PARAMETER, required = false) String fields
+    ) {
+        if (Math.abs(lat) > 90 || Math.abs(lon) > 180
+                || radiusKm != null && (radiusKm < 0 || radiusKm > MAX_RADIUS_KM)) {
+            throw new InvalidLocationException();
+        }
+
+        return assembler.toResources(
+                this.carService.near(lat, lon, radiusKm, pageSize(limit), CarFields.parse(fields).enrichments())
+        );
+    }
+
+    /**
+     * Exports every vehicle as newline-delimited JSON, one vehicle per line,
+     * written as soon as its batch is enriched. The response is streamed:
+     * a slow client slows down the export instead of buffering it in memory.
+     *
+     * @param response the response the vehicles are written to
+     * @throws IOException if the client went away
+     */
+    @GetMapping(value = "/export", produces = NDJSON)
+    void export(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.flushBuffer();
 
-        return new Resources<>(resources, linkTo(methodOn(CarController.class).list()).withSelfRel());
+        OutputStream out = response.getOutputStream();
+        ObjectWriter writer = this.objectMapper.writerFor(Car.class);
+
+        try {
+            this.carService.export(cars -> {
+                try {
+                    for (Car car : cars) {
+                        out.write(writer.writeValueAsBytes(car));
+                        out.write('\n');
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     /**
-     * Gets information of a specific car by ID.
+     * Gets information of a specific car by ID. The response carries an ETag
+     * and Last-Modified date; when the client's copy is still current,
+     * 304 Not Modified is returned without calling the pricing and maps services.
+     * A response in which the price or the address fell back carries neither.
+     *
+     * @param id      the id number of the given vehicle
+     * @param fields  comma separated properties to include, all of them when absent
+     * @param request the request, checked for conditional headers
+     * @return the requested information for the vehicle, or 304 Not Modified
+     * when the client's copy is still current
+     */
+    @ApiResponses(value = {
+        @ApiResponse(code = 404, message = CarNotFoundException.CAR_NOT_FOUND_MESSAGE),
+        @ApiResponse(code = 400, message = InvalidFieldsException.INVALID_FIELDS_MESSAGE)
+    })
+    @GetMapping("/{id}")
+    ResponseEntity<Resource<Car>> get(
+            @PathVariable Long id,
+            @RequestParam(name = CarFields.PARAMETER, required = false) String fields,
+            HttpServletRequest request
+    ) {
+        CarFields carFields = CarFields.parse(fields);
+        Car car = this.carService.findById(id, Enrichment.NONE);
+
+        String eTag = CarETags.of(car, carFields);
+        long lastModified = CarETags.lastModified(car);
+        if (CarETags.isNotModified(request, eTag, lastModified)) {
+            return CarETags.notModified(eTag, lastModified);
+        }
+
+        boolean complete = this.carService.enrich(car, carFields.enrichments());
+
+        return CarETags.ok(assembler.toResource(car), eTag, lastModified, complete);
+    }
+
+    /**
+     * Gets the summary of a specific car by ID, without price and location.
      *
      * @param id the id number of the given vehicle
-     * @return all information for the requested vehicle
+     * @return the summary of the requested vehicle
      */
     @ApiResponses(value = {
         @ApiResponse(code = 404, message = CarNotFoundException.CAR_NOT_FOUND_MESSAGE)
     })
-    @GetMapping("/{id}")
-    Resource<Car> get(@PathVariable Long id) {
-        return assembler.toResource(
-                this.carService.findById(id)
+    @GetMapping(value = "/{id}", params = "view=summary")
+    Resource<CarSummary> getSummary(@PathVariable Long id) {
+        return assembler.toSummaryResource(
+                this.carService.findSummaryById(id)
         );
     }
 
     /**
-     * Posts information to create a new vehicle in the system.
+     * Posts information to create a new vehicle in the system. Unless the
+     * service writes synchronously, the vehicle is returned as soon as it is
+     * stored, its price and location being gathered in the background.
      *
-     * @param car A new vehicle to add to the system.
+     * @param car               A new vehicle to add to the system.
+     * @param waitForEnrichment whether to return the vehicle only once its price and location are gathered
      * @return response that the new vehicle was added to the system
      * @throws URISyntaxException if the request contains invalid fields or syntax
      */
@@ -72,9 +293,12 @@ class CarController {
         @ApiResponse(code = 400, message = ManufacturerNotExistsException.NOT_EXISTS_MESSAGE)
     })
     @PostMapping
-    ResponseEntity<?> post(@Valid @RequestBody Car car) throws URISyntaxException {
+    ResponseEntity<?> post(
+            @Valid @RequestBody Car car,
+            @RequestHeader(name = WAIT_FOR_ENRICHMENT, defaultValue = "false") boolean waitForEnrichment
+    ) throws URISyntaxException {
         Resource<Car> resource = assembler.toResource(
-                this.carService.save(car)
+                this.carService.save(car, waitForEnrichment)
         );
 
         return ResponseEntity
@@ -83,10 +307,26 @@ class CarController {
     }
 
     /**
-     * Updates the information of a vehicle in the system.
+     * Creates many vehicles at once, without gathering their price and location.
+     * Every item is validated on its own: invalid items are reported and skipped,
+     * the others created.
      *
-     * @param id  The ID number for which to update vehicle information.
-     * @param car The updated information about the related vehicle.
+     * @param request a JSON array of vehicles, or newline-delimited JSON with one vehicle per line
+     * @return how many vehicles were created and rejected, and the result of every item
+     * @throws IOException if the request could not be read
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    ResponseEntity<BulkResult> bulk(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(this.carBulkService.ingest(request.getInputStream()));
+    }
+
+    /**
+     * Updates the information of a vehicle in the system. Price and location
+     * are gathered as when a vehicle is posted.
+     *
+     * @param id                The ID number for which to update vehicle information.
+     * @param car               The updated information about the related vehicle.
+     * @param waitForEnrichment whether to return the vehicle only once its price and location are gathered
      * @return response that the vehicle was updated in the system
      */
     @ApiResponses(value = {
@@ -94,16 +334,45 @@ class CarController {
         @ApiResponse(code = 400, message = ManufacturerNotExistsException.NOT_EXISTS_MESSAGE)
     })
     @PutMapping("/{id}")
-    ResponseEntity<?> put(@PathVariable Long id, @Valid @RequestBody Car car) {
+    ResponseEntity<?> put(
+            @PathVariable Long id,
+            @Valid @RequestBody Car car,
+            @RequestHeader(name = WAIT_FOR_ENRICHMENT, defaultValue = "false") boolean waitForEnrichment
+    ) {
         car.setId(id);
 
         Resource<Car> storedCarAsResource = assembler.toResource(
-                this.carService.save(car)
+                this.carService.save(car, waitForEnrichment)
         );
 
         return ResponseEntity.ok(storedCarAsResource);
     }
 
+    /**
+     * Changes some of the information of a vehicle in the system. A patch
+     * that changes nothing leaves the vehicle and its modification date as they were.
+     *
+     * @param id                The ID number of the vehicle to patch.
+     * @param patch             A JSON Merge Patch (RFC 7396): members to replace, null for members to remove.
+     * @param waitForEnrichment whether to return the vehicle only once its price and location are gathered
+     * @return response holding the patched vehicle
+     */
+    @ApiResponses(value = {
+        @ApiResponse(code = 404, message = CarNotFoundException.CAR_NOT_FOUND_MESSAGE),
+        @ApiResponse(code = 400, message = InvalidPatchException.INVALID_PATCH_MESSAGE
+                + " or " + ManufacturerNotExistsException.NOT_EXISTS_MESSAGE)
+    })
+    @PatchMapping(value = "/{id}", consumes = MERGE_PATCH)
+    ResponseEntity<?> patch(
+            @PathVariable Long id,
+            @RequestBody JsonNode patch,
+            @RequestHeader(name = WAIT_FOR_ENRICHMENT, defaultValue = "false") boolean waitForEnrichment
+    ) {
+        return ResponseEntity.ok(assembler.toResource(
+                this.carService.patch(id, patch, waitForEnrichment)
+        ));
+    }
+
     /**
      * Removes a vehicle from the system.
      *
@@ -120,4 +389,8 @@ class CarController {
 
         return ResponseEntity.noContent().build();
     }
+
+    private static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
 }
@@ -0,0 +1,45 @@
+package com.udacity.vehicles.api;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque cursors used to paginate the car list.
+ * A cursor identifies the last car of the previous page.
+ */
+final class CarCursor {
+
+    private static final String PREFIX = "id:";
+
+    private CarCursor() {
+    }
+
+    static String encode(Long id) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor a cursor previously returned by the API, or null for the first page
+     * @return the ID after which the page starts, or null for the first page
+     * @throws InvalidCursorException if the cursor was not issued by the API
+     */
+    static Long decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+
+            if (!decoded.startsWith(PREFIX)) {
+                throw new InvalidCursorException();
+            }
+
+            return Long.valueOf(decoded.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.udacity.vehicles.api;
+
+import com.udacity.vehicles.domain.car.Car;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Derives the validators of car responses from what is stored, so that they
+ * can be checked before the pricing and maps services are called: a car is
+ * unchanged as long as its modification date and the date its address was
+ * resolved are. The requested properties are part of the ETag, as every
+ * selection of them is a representation of its own. A response in which a
+ * price or an address fell back carries no validator, so that a client
+ * holding it gets the complete car once the services are back.
+ */
+final class CarETags {
+
+    private CarETags() {
+    }
+
+    /**
+     * @return a strong ETag made of the ID, modification date and address
+     * resolution date of the car, and of the requested properties unless all
+     * of them are, or null if the car was never stamped
+     */
+    static String of(Car car, CarFields fields) {
+        if (car.getModifiedAt() == null) {
+            return null;
+        }
+
+        String eTag = version(car);
+        if (!fields.isAll()) {
+            eTag += "-" + fields.key();
+        }
+
+        return "\"" + eTag + "\"";
+    }
+
+    /**
+     * @param view the requested view of the cars, or null for the default one
+     * @return a strong ETag changing whenever a car of the page changes or
+     * gets its address resolved, enters or leaves the page, or another
+     * representation of the page is requested, or null if a car of the page
+     * was never stamped
+     */
+    static String of(Slice<Car> cars, CarFields fields, String view) {
+        StringBuilder versions = new StringBuilder();
+        versions.append(fields.key()).append(';').append(view == null ? "" : view).append(';');
+
+        for (Car car : cars) {
+            if (car.getModifiedAt() == null) {
+                return null;
+            }
+            versions.append(version(car)).append(',');
+        }
+        versions.append(cars.hasNext());
+
+        return "\"" + DigestUtils.md5DigestAsHex(versions.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * @return the latest of the modification and address resolution dates of
+     * the car in milliseconds since the epoch, or -1 if unknown
+     */
+    static long lastModified(Car car) {
+        if (car.getModifiedAt() == null) {
+            return -1;
+        }
+
+        LocalDateTime resolvedAt = car.getLocation().getResolvedAt();
+        return resolvedAt != null && resolvedAt.isAfter(car.getModifiedAt())
+                ? epochMillis(resolvedAt)
+                : epochMillis(car.getModifiedAt());
+    }
+
+    /**
+     * Checks the conditional headers of a request without touching the
+     * response, whose validators are only known once it is complete.
+     *
+     * @param eTag         the current ETag, or null if there is none
+     * @param lastModified the current modification date, or -1 if unknown
+     * @return whether the client's copy is still current
+     */
+    static boolean isNotModified(HttpServletRequest request, String eTag, long lastModified) {
+        return new ServletWebRequest(request).checkNotModified(eTag, lastModified);
+    }
+
+    /**
+     * @return a 304 Not Modified answer carrying the validators the client's copy matched
+     */
+    static <T> ResponseEntity<T> notModified(String eTag, long lastModified) {
+        return validated(ResponseEntity.status(HttpStatus.NOT_MODIFIED), eTag, lastModified).build();
+    }
+
+    /**
+     * @param complete whether every requested price and address was gathered
+     * @return a 200 OK answer carrying the validators only if it is complete
+     */
+    static <T> ResponseEntity<T> ok(T body, String eTag, long lastModified, boolean complete) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+
+        return complete
+                ? validated(builder, eTag, lastModified).body(body)
+                : builder.body(body);
+    }
+
+    private static ResponseEntity.BodyBuilder validated(ResponseEntity.BodyBuilder builder,
+                                                        String eTag, long lastModified) {
+        if (eTag != null) {
+            builder.eTag(eTag);
+        }
+        if (lastModified >= 0) {
+            builder.lastModified(lastModified);
+        }
+
+        return builder;
+    }
+
+    private static String version(Car car) {
+        LocalDateTime resolvedAt = car.getLocation().getResolvedAt();
+
+        return car.getId() + "-" + epochMillis(car.getModifiedAt())
+                + (resolvedAt == null ? "" : "-" + epochMillis(resolvedAt));
+    }
+
+    private static long epochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
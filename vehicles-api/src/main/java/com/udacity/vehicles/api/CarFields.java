@@ -0,0 +1,95 @@
+package com.udacity.vehicles.api;
+
+import com.udacity.vehicles.service.Enrichment;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parses the {@code fields} parameter a client uses to request only some
+ * properties of a car, and tells which data has to be gathered from the
+ * pricing and maps services to fill them in.
+ */
+final class CarFields {
+
+    static final String PARAMETER = "fields";
+
+    private static final List<String> PROPERTIES =
+            Arrays.asList("id", "createdAt", "modifiedAt", "condition", "details", "location", "price");
+
+    static final CarFields ALL = new CarFields(new HashSet<>(PROPERTIES));
+
+    private final Set<String> properties;
+    private final Set<Enrichment> enrichments;
+
+    private CarFields(Set<String> properties) {
+        this.properties = Collections.unmodifiableSet(properties);
+
+        Set<Enrichment> enrichments = EnumSet.noneOf(Enrichment.class);
+        if (properties.contains("price")) {
+            enrichments.add(Enrichment.PRICE);
+        }
+        if (properties.contains("location")) {
+            enrichments.add(Enrichment.ADDRESS);
+        }
+        this.enrichments = Collections.unmodifiableSet(enrichments);
+    }
+
+    /**
+     * @param fields comma separated car properties, or null for all of them
+     * @return the requested properties; the ID is always included
+     * @throws InvalidFieldsException if a property is unknown
+     */
+    static CarFields parse(String fields) {
+        if (fields == null || fields.isEmpty()) {
+            return ALL;
+        }
+
+        Set<String> properties = new HashSet<>();
+        properties.add("id");
+
+        for (String field : fields.split(",")) {
+            String property = field.trim();
+
+            if (!PROPERTIES.contains(property)) {
+                throw new InvalidFieldsException();
+            }
+
+            properties.add(property);
+        }
+
+        return new CarFields(properties);
+    }
+
+    Set<String> properties() {
+        return this.properties;
+    }
+
+    Set<Enrichment> enrichments() {
+        return this.enrichments;
+    }
+
+    /**
+     * @return the requested properties in a fixed order, separated by dots,
+     * identifying the representation they make up
+     */
+    String key() {
+        StringBuilder key = new StringBuilder();
+
+        for (String property : PROPERTIES) {
+            if (this.properties.contains(property)) {
+                key.append(key.length() == 0 ? "" : ".").append(property);
+            }
+        }
+
+        return key.toString();
+    }
+
+    boolean isAll() {
+        return this.properties.size() == PROPERTIES.size();
+    }
+}
@@ -0,0 +1,46 @@
+package com.udacity.vehicles.api;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.udacity.vehicles.domain.car.Car;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+/**
+ * Leaves out of the cars written by {@link CarController} the properties
+ * not listed in the {@code fields} request parameter.
+ */
+@RestControllerAdvice(assignableTypes = CarController.class)
+class CarFieldsAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    @Override
+    protected void beforeBodyWriteInternal(
+            MappingJacksonValue bodyContainer,
+            MediaType contentType,
+            MethodParameter returnType,
+            ServerHttpRequest request,
+            ServerHttpResponse response
+    ) {
+        if (!(request instanceof ServletServerHttpRequest)) {
+            return;
+        }
+
+        String fields = ((ServletServerHttpRequest) request).getServletRequest().getParameter(CarFields.PARAMETER);
+        CarFields carFields = CarFields.parse(fields);
+
+        if (carFields.isAll()) {
+            return;
+        }
+
+        bodyContainer.setFilters(new SimpleFilterProvider().addFilter(
+                Car.FIELDS_FILTER,
+                SimpleBeanPropertyFilter.filterOutAllExcept(carFields.properties())
+        ));
+    }
+}
@@ -1,9 +1,22 @@
 package com.udacity.vehicles.api;
 
 import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarSummary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.Resource;
 import org.springframework.hateoas.ResourceAssembler;
+import org.springframework.hateoas.Resources;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.springframework.hateoas.mvc.ControllerLinkBuilder.*;
 
@@ -13,11 +26,158 @@ import static org.springframework.hateoas.mvc.ControllerLinkBuilder.*;
 @Component
 public class CarResourceAssembler implements ResourceAssembler<Car, Resource<Car>> {
 
+    private final boolean cachedTemplates;
+
+    /**
+     * @param cachedTemplates whether the link of a car is expanded from the link of
+     *                        the cars collection, resolved once per response, instead
+     *                        of being built through the controller for every car
+     */
+    public CarResourceAssembler(@Value("${vehicles.links.cached-templates:true}") boolean cachedTemplates) {
+        this.cachedTemplates = cachedTemplates;
+    }
+
     @Override
     public Resource<Car> toResource(Car car) {
-        return new Resource<>(car,
-                linkTo(methodOn(CarController.class).get(car.getId())).withSelfRel(),
-                linkTo(methodOn(CarController.class).list()).withRel("cars"));
+        return this.forCurrentRequest().apply(car);
+    }
+
+    /**
+     * Wraps a page of cars, linking to the page itself and,
+     * when more cars exist, to the next page.
+     *
+     * @param cars  the cars of the current page
+     * @param after the cursor the current page was requested with, if any
+     * @param limit the page size the current page was requested with
+     * @return the page of cars including its navigation links
+     */
+    public Resources<Resource<Car>> toResources(Slice<Car> cars, String after, int limit) {
+        return this.pagesForCurrentRequest(Car::getId, after, limit).apply(cars);
+    }
+
+    /**
+     * Wraps a list of cars that is not paged, such as search results.
+     *
+     * @param cars the cars to wrap
+     * @return the cars, linking to the current request
+     */
+    public Resources<Resource<Car>> toResources(List<Car> cars) {
+        Function<Car, Resource<Car>> toResource = this.forCurrentRequest();
+
+        return new Resources<>(
+                cars.stream().map(toResource).collect(Collectors.toList()),
+                new Link(ServletUriComponentsBuilder.fromCurrentRequest().toUriString(), Link.REL_SELF)
+        );
+    }
+
+    /**
+     * Wraps a page of car summaries as {@link #toResources(Slice, String, int)} does.
+     *
+     * @param cars  the car summaries of the current page
+     * @param after the cursor the current page was requested with, if any
+     * @param limit the page size the current page was requested with
+     * @return the page of car summaries including its navigation links
+     */
+    public Resources<Resource<CarSummary>> toSummaryResources(Slice<CarSummary> cars, String after, int limit) {
+        return this.pagesForCurrentRequest(CarSummary::getId, after, limit).apply(cars);
+    }
+
+    /**
+     * @param car the summary of a car
+     * @return the summary, linking to the full car
+     */
+    public Resource<CarSummary> toSummaryResource(CarSummary car) {
+        return this.forCurrentRequest(CarSummary::getId).apply(car);
+    }
+
+    /**
+     * Resolves the links depending on the current request up front, so cars can be
+     * turned into resources later on threads not bound to the request, such as the
+     * ones completing a reactive pipeline.
+     *
+     * @return a function mapping a car to its resource
+     */
+    public Function<Car, Resource<Car>> forCurrentRequest() {
+        return this.forCurrentRequest(Car::getId);
+    }
+
+    /**
+     * Resolves the links depending on the current request up front, as
+     * {@link #forCurrentRequest()} does, for a page of cars. Paging links keep
+     * the other parameters of the current request.
+     *
+     * @param idOf  gets the ID of a car, used to build the cursor of the next page
+     * @param after the cursor the current page was requested with, if any
+     * @param limit the page size the current page was requested with
+     * @param <T>   the representation of the cars in the page
+     * @return a function wrapping a page of cars including its navigation links
+     */
+    public <T> Function<Slice<T>, Resources<Resource<T>>> pagesForCurrentRequest(
+            Function<T, Long> idOf,
+            String after,
+            int limit
+    ) {
+        UriComponentsBuilder pagesUri = ServletUriComponentsBuilder.fromCurrentRequest();
+        Function<T, Resource<T>> toResource = this.forCurrentRequest(idOf);
+        Link self = pageLink(pagesUri, after, limit, Link.REL_SELF);
+
+        return cars -> {
+            List<Resource<T>> resources = cars.getContent()
+                    .stream()
+                    .map(toResource)
+                    .collect(Collectors.toList());
+
+            Resources<Resource<T>> page = new Resources<>(resources, self);
+
+            if (cars.hasNext()) {
+                T last = cars.getContent().get(cars.getNumberOfElements() - 1);
+                page.add(pageLink(pagesUri, CarCursor.encode(idOf.apply(last)), limit, Link.REL_NEXT));
+            }
+
+            return page;
+        };
+    }
+
+    /**
+     * The link to the cars collection honours the forwarded headers of the
+     * current request; with cached templates, the link of each car only
+     * appends its ID to it. Otherwise the link of each car is built through
+     * the controller, within the attributes of the current request so that
+     * it can be built on any thread.
+     */
+    private <T> Function<T, Resource<T>> forCurrentRequest(Function<T, Long> idOf) {
+        Link carsLink = linkTo(CarController.class).withRel("cars");
+
+        if (!this.cachedTemplates) {
+            RequestAttributes request = RequestContextHolder.currentRequestAttributes();
+
+            return car -> {
+                RequestAttributes previous = RequestContextHolder.getRequestAttributes();
+                RequestContextHolder.setRequestAttributes(request);
+                try {
+                    return new Resource<>(car,
+                            linkTo(methodOn(CarController.class).get(idOf.apply(car), null, null)).withSelfRel(),
+                            carsLink);
+                } finally {
+                    RequestContextHolder.setRequestAttributes(previous);
+                }
+            };
+        }
+
+        String carHrefPrefix = carsLink.getHref() + "/";
+
+        return car -> new Resource<>(car, new Link(carHrefPrefix + idOf.apply(car)), carsLink);
+    }
+
+    private static Link pageLink(UriComponentsBuilder pagesUri, String after, int limit, String rel) {
+        UriComponentsBuilder builder = pagesUri.cloneBuilder()
+                .replaceQueryParam("limit", limit)
+                .replaceQueryParam("after");
+
+        if (after != null) {
+            builder.replaceQueryParam("after", after);
+        }
 
+        return new Link(builder.toUriString(), rel);
     }
 }
@@ -0,0 +1,17 @@
+package com.udacity.vehicles.api;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.BAD_REQUEST, reason = InvalidCursorException.INVALID_CURSOR_MESSAGE)
+public class InvalidCursorException extends RuntimeException {
+
+    public static final String INVALID_CURSOR_MESSAGE = "invalid pagination cursor";
+
+    public InvalidCursorException() {
+    }
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.udacity.vehicles.api;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.BAD_REQUEST, reason = InvalidFieldsException.INVALID_FIELDS_MESSAGE)
+public class InvalidFieldsException extends RuntimeException {
+
+    public static final String INVALID_FIELDS_MESSAGE = "unknown field requested";
+
+    public InvalidFieldsException() {
+    }
+
+    public InvalidFieldsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.udacity.vehicles.api;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.BAD_REQUEST, reason = InvalidLocationException.INVALID_LOCATION_MESSAGE)
+public class InvalidLocationException extends RuntimeException {
+
+    public static final String INVALID_LOCATION_MESSAGE = "invalid coordinates or radius";
+
+    public InvalidLocationException() {
+    }
+
+    public InvalidLocationException(String message) {
+        super(message);
+    }
+}
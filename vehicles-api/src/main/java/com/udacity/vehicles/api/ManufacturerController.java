@@ -0,0 +1,86 @@
+package com.udacity.vehicles.api;
+
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import com.udacity.vehicles.service.ManufacturerInUseException;
+import com.udacity.vehicles.service.ManufacturerNotFoundException;
+import com.udacity.vehicles.service.ManufacturerService;
+import io.swagger.annotations.*;
+import org.springframework.hateoas.*;
+import org.springframework.http.*;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+
+/**
+ * Implements a REST-based controller for the manufacturers cars can be made by.
+ * Every change is reflected at once in the registry cars are checked against.
+ */
+@RestController
+@RequestMapping("/manufacturers")
+class ManufacturerController {
+
+    private final ManufacturerService manufacturerService;
+    private final ManufacturerResourceAssembler assembler;
+
+    ManufacturerController(ManufacturerService manufacturerService, ManufacturerResourceAssembler assembler) {
+        this.manufacturerService = manufacturerService;
+        this.assembler = assembler;
+    }
+
+    /**
+     * Lists every manufacturer, ordered by code.
+     *
+     * @return list of manufacturers
+     */
+    @GetMapping
+    Resources<Resource<Manufacturer>> list() {
+        return assembler.toResources(this.manufacturerService.findAll());
+    }
+
+    /**
+     * Gets a manufacturer by code.
+     *
+     * @param code the code of the manufacturer
+     * @return the requested manufacturer
+     */
+    @ApiResponses(value = {
+        @ApiResponse(code = 404, message = ManufacturerNotFoundException.MANUFACTURER_NOT_FOUND_MESSAGE)
+    })
+    @GetMapping("/{code}")
+    Resource<Manufacturer> get(@PathVariable Integer code) {
+        return assembler.toResource(
+                this.manufacturerService.findByCode(code).orElseThrow(ManufacturerNotFoundException::new)
+        );
+    }
+
+    /**
+     * Creates a manufacturer, or renames it if it exists.
+     *
+     * @param code         the code of the manufacturer
+     * @param manufacturer the manufacturer; its name is stored under the code of the path
+     * @return response holding the stored manufacturer
+     */
+    @PutMapping("/{code}")
+    ResponseEntity<?> put(@PathVariable Integer code, @Valid @RequestBody Manufacturer manufacturer) {
+        return ResponseEntity.ok(assembler.toResource(
+                this.manufacturerService.save(new Manufacturer(code, manufacturer.getName()))
+        ));
+    }
+
+    /**
+     * Removes a manufacturer no car is made by.
+     *
+     * @param code the code of the manufacturer
+     * @return response that the manufacturer is no longer in the system
+     */
+    @ApiResponses(value = {
+        @ApiResponse(code = 404, message = ManufacturerNotFoundException.MANUFACTURER_NOT_FOUND_MESSAGE),
+        @ApiResponse(code = 409, message = ManufacturerInUseException.IN_USE_MESSAGE)
+    })
+    @DeleteMapping("/{code}")
+    ResponseEntity<?> delete(@PathVariable Integer code) {
+        this.manufacturerService.delete(code);
+
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,36 @@
+package com.udacity.vehicles.api;
+
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import org.springframework.hateoas.Resource;
+import org.springframework.hateoas.ResourceAssembler;
+import org.springframework.hateoas.Resources;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.*;
+
+/**
+ * Maps the ManufacturerController to the Manufacturer class using HATEOAS
+ */
+@Component
+public class ManufacturerResourceAssembler implements ResourceAssembler<Manufacturer, Resource<Manufacturer>> {
+
+    @Override
+    public Resource<Manufacturer> toResource(Manufacturer manufacturer) {
+        return new Resource<>(manufacturer,
+                linkTo(methodOn(ManufacturerController.class).get(manufacturer.getCode())).withSelfRel(),
+                linkTo(ManufacturerController.class).withRel("manufacturers"));
+    }
+
+    /**
+     * @param manufacturers the manufacturers to wrap
+     * @return the manufacturers, linking to the list itself
+     */
+    public Resources<Resource<Manufacturer>> toResources(List<Manufacturer> manufacturers) {
+        return new Resources<>(
+                manufacturers.stream().map(this::toResource).collect(Collectors.toList()),
+                linkTo(ManufacturerController.class).withSelfRel());
+    }
+}
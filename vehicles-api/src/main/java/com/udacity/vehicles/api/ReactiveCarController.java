@@ -0,0 +1,66 @@
+package com.udacity.vehicles.api;
+
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.service.*;
+import io.swagger.annotations.*;
+import org.springframework.hateoas.*;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * Implements the read operations of the Vehicles API without holding
+ * a servlet thread while the database, pricing and maps services answer.
+ * Responses are the same as the ones of {@link CarController}.
+ */
+@RestController
+@RequestMapping("/cars/reactive")
+class ReactiveCarController {
+
+    private final ReactiveCarService carService;
+    private final CarResourceAssembler assembler;
+
+    ReactiveCarController(ReactiveCarService carService, CarResourceAssembler assembler) {
+        this.carService = carService;
+        this.assembler = assembler;
+    }
+
+    /**
+     * Lists vehicles one page at a time, ordered by ID.
+     *
+     * @param after opaque cursor taken from the "next" link of the previous page
+     * @param limit maximum number of vehicles in the page
+     * @return page of vehicles, linking to the next page when there is one
+     */
+    @ApiResponses(value = {
+        @ApiResponse(code = 400, message = InvalidCursorException.INVALID_CURSOR_MESSAGE)
+    })
+    @GetMapping
+    Mono<Resources<Resource<Car>>> list(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + CarController.DEFAULT_PAGE_SIZE) int limit
+    ) {
+        int pageSize = Math.max(1, Math.min(limit, CarController.MAX_PAGE_SIZE));
+
+        return this.carService
+                .list(CarCursor.decode(after), pageSize)
+                .map(assembler.pagesForCurrentRequest(Car::getId, after, pageSize));
+    }
+
+    /**
+     * Gets information of a specific car by ID.
+     *
+     * @param id the id number of the given vehicle
+     * @return all information for the requested vehicle
+     */
+    @ApiResponses(value = {
+        @ApiResponse(code = 404, message = CarNotFoundException.CAR_NOT_FOUND_MESSAGE)
+    })
+    @GetMapping("/{id}")
+    Mono<Resource<Car>> get(@PathVariable Long id) {
+        Function<Car, Resource<Car>> toResource = assembler.forCurrentRequest();
+
+        return this.carService.findById(id).map(toResource);
+    }
+}
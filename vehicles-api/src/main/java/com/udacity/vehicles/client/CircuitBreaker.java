@@ -0,0 +1,172 @@
+package com.udacity.vehicles.client;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks the outcome of the latest calls to a downstream service and stops
+ * letting calls through while too many of them fail. After a pause, a few
+ * trial calls decide whether the service recovered.
+ */
+public class CircuitBreaker {
+
+    /**
+     * Whether calls are let through.
+     */
+    public enum State {
+        /**
+         * Calls are let through and their outcome recorded.
+         */
+        CLOSED,
+        /**
+         * Calls are rejected until the pause is over.
+         */
+        OPEN,
+        /**
+         * A limited number of trial calls are let through.
+         */
+        HALF_OPEN
+    }
+
+    static final int HALF_OPEN_CALLS = 3;
+
+    private final boolean[] outcomes;
+    private final int failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier nanoTime;
+
+    private State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failures;
+    private long openedAt;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    /**
+     * @param windowSize           number of latest calls the failure rate is computed on
+     * @param failureRateThreshold percentage of failed calls that opens the circuit
+     * @param openDuration         how long calls are rejected before trial calls are let through
+     */
+    public CircuitBreaker(int windowSize, int failureRateThreshold, Duration openDuration) {
+        this(windowSize, failureRateThreshold, openDuration, HALF_OPEN_CALLS, System::nanoTime);
+    }
+
+    CircuitBreaker(
+            int windowSize,
+            int failureRateThreshold,
+            Duration openDuration,
+            int halfOpenCalls,
+            LongSupplier nanoTime
+    ) {
+        this.outcomes = new boolean[windowSize];
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Asks to let a call through. A permitted call must be reported with
+     * {@link #onSuccess()}, {@link #onFailure()} or {@link #onCancel()}.
+     *
+     * @return whether the call may be issued
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (this.state == State.OPEN) {
+            if (this.nanoTime.getAsLong() - this.openedAt < this.openNanos) {
+                return false;
+            }
+
+            this.state = State.HALF_OPEN;
+            this.trialsStarted = 0;
+            this.trialsSucceeded = 0;
+        }
+
+        if (this.state == State.HALF_OPEN) {
+            if (this.trialsStarted >= this.halfOpenCalls) {
+                return false;
+            }
+
+            this.trialsStarted++;
+        }
+
+        return true;
+    }
+
+    /**
+     * Records a permitted call that succeeded.
+     */
+    public synchronized void onSuccess() {
+        if (this.state == State.HALF_OPEN) {
+            if (++this.trialsSucceeded >= this.halfOpenCalls) {
+                this.close();
+            }
+        } else if (this.state == State.CLOSED) {
+            this.record(false);
+        }
+    }
+
+    /**
+     * Records a permitted call that failed or timed out.
+     */
+    public synchronized void onFailure() {
+        if (this.state == State.HALF_OPEN) {
+            this.open();
+        } else if (this.state == State.CLOSED) {
+            this.record(true);
+
+            if (this.recorded == this.outcomes.length
+                    && this.failures * 100 >= this.failureRateThreshold * this.recorded) {
+                this.open();
+            }
+        }
+    }
+
+    /**
+     * Records a permitted call abandoned before its outcome was known,
+     * so it does not count as a trial call.
+     */
+    public synchronized void onCancel() {
+        if (this.state == State.HALF_OPEN && this.trialsStarted > this.trialsSucceeded) {
+            this.trialsStarted--;
+        }
+    }
+
+    /**
+     * @return the current state, not accounting for a pause that is over
+     * until the next call asks for permission
+     */
+    public synchronized State getState() {
+        return this.state;
+    }
+
+    private void record(boolean failure) {
+        if (this.recorded == this.outcomes.length) {
+            if (this.outcomes[this.next]) {
+                this.failures--;
+            }
+        } else {
+            this.recorded++;
+        }
+
+        this.outcomes[this.next] = failure;
+        if (failure) {
+            this.failures++;
+        }
+        this.next = (this.next + 1) % this.outcomes.length;
+    }
+
+    private void open() {
+        this.state = State.OPEN;
+        this.openedAt = this.nanoTime.getAsLong();
+    }
+
+    private void close() {
+        this.state = State.CLOSED;
+        this.recorded = 0;
+        this.next = 0;
+        this.failures = 0;
+    }
+}
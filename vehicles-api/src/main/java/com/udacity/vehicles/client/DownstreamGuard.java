@@ -0,0 +1,165 @@
+package com.udacity.vehicles.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Protects the vehicles API from a slow or failing downstream service.
+ * Every call is given a timeout, at most a fixed number of calls are in
+ * flight at the same time, and calls are not issued at all while the
+ * circuit breaker deems the service unhealthy. Rejected calls fail right
+ * away with a {@link DownstreamRejectedException}, so callers fall back
+ * without waiting. Calls issued are timed, from the client side, by outcome.
+ * Only errors telling the service is unhealthy count against the circuit:
+ * server errors, timeouts and connection errors. A client error, such as a
+ * 404, shows the service answered and counts as a success.
+ */
+public class DownstreamGuard {
+
+    private final String name;
+    private final Duration timeout;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final MeterRegistry registry;
+    private final Timer successes;
+    private final Timer failures;
+    private final Timer timeouts;
+    private final Timer cancellations;
+    private final Counter circuitOpenRejections;
+    private final Counter bulkheadRejections;
+
+    /**
+     * @param name               name of the downstream service, used to tag the metrics
+     * @param timeout            how long a call may take before it counts as failed
+     * @param maxConcurrentCalls number of calls allowed in flight at the same time
+     * @param circuitBreaker     decides whether calls are issued at all
+     * @param registry           where the metrics of the guard are registered
+     */
+    public DownstreamGuard(
+            String name,
+            Duration timeout,
+            int maxConcurrentCalls,
+            CircuitBreaker circuitBreaker,
+            MeterRegistry registry
+    ) {
+        this.name = name;
+        this.timeout = timeout;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.circuitBreaker = circuitBreaker;
+        this.registry = registry;
+
+        Gauge.builder("downstream.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("State of the circuit breaker: 0 closed, 1 open, 2 half open")
+                .tag("service", name)
+                .register(registry);
+        Gauge.builder("downstream.bulkhead.available", this.bulkhead, Semaphore::availablePermits)
+                .description("Calls that may still be issued before the bulkhead rejects them")
+                .tag("service", name)
+                .register(registry);
+
+        this.successes = calls(registry, name, "success");
+        this.failures = calls(registry, name, "failure");
+        this.timeouts = calls(registry, name, "timeout");
+        this.cancellations = calls(registry, name, "cancelled");
+        this.circuitOpenRejections = rejections(registry, name, "circuit_open");
+        this.bulkheadRejections = rejections(registry, name, "bulkhead_full");
+    }
+
+    /**
+     * Issues a call unless the circuit is open or the bulkhead is full.
+     *
+     * @param call creates the Mono performing the call; only invoked when the call is permitted
+     * @param <T>  the type of the call's result
+     * @return a Mono emitting the call's result, failing with a {@link TimeoutException}
+     * when the call takes too long or with a {@link DownstreamRejectedException} when
+     * the call was not issued
+     */
+    public <T> Mono<T> protect(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            if (!this.bulkhead.tryAcquire()) {
+                this.bulkheadRejections.increment();
+                return Mono.error(new DownstreamRejectedException(this.name + " bulkhead full"));
+            }
+
+            if (!this.circuitBreaker.tryAcquirePermission()) {
+                this.bulkhead.release();
+                this.circuitOpenRejections.increment();
+                return Mono.error(new DownstreamRejectedException(this.name + " circuit open"));
+            }
+
+            Timer.Sample sample = Timer.start(this.registry);
+
+            return call.get()
+                    .timeout(this.timeout)
+                    .doOnSuccess(result -> {
+                        sample.stop(this.successes);
+                        this.circuitBreaker.onSuccess();
+                    })
+                    .doOnError(e -> {
+                        sample.stop(e instanceof TimeoutException ? this.timeouts : this.failures);
+
+                        if (isDownstreamFault(e)) {
+                            this.circuitBreaker.onFailure();
+                        } else {
+                            this.circuitBreaker.onSuccess();
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        sample.stop(this.cancellations);
+                        this.circuitBreaker.onCancel();
+                    })
+                    .doFinally(signal -> this.bulkhead.release());
+        });
+    }
+
+    /**
+     * @return the circuit breaker deciding whether calls are issued
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return this.circuitBreaker;
+    }
+
+    /**
+     * @return whether an error shows the downstream service is unhealthy:
+     * a server error, a timeout, or an I/O error such as a refused connection
+     */
+    static boolean isDownstreamFault(Throwable error) {
+        if (error instanceof WebClientResponseException) {
+            return ((WebClientResponseException) error).getRawStatusCode() >= 500;
+        }
+
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException || cause instanceof IOException) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static Timer calls(MeterRegistry registry, String name, String outcome) {
+        return Timer.builder("downstream.calls")
+                .description("Time taken by the calls issued to a downstream service, network included, by outcome")
+                .tag("service", name)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Counter rejections(MeterRegistry registry, String name, String reason) {
+        return Counter.builder("downstream.calls.rejected")
+                .description("Calls to a downstream service not issued, by reason")
+                .tag("service", name)
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
@@ -0,0 +1,15 @@
+package com.udacity.vehicles.client;
+
+/**
+ * Signals a call to a downstream service that was not issued, because its
+ * circuit is open or too many calls to it are already in flight.
+ */
+public class DownstreamRejectedException extends RuntimeException {
+
+    public DownstreamRejectedException() {
+    }
+
+    public DownstreamRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,232 @@
+package com.udacity.vehicles.client;
+
+import com.udacity.tracing.ReactiveTracer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Spreads the requests to a downstream service over several instances of it.
+ * A hedged request that did not answer within the observed latency percentile
+ * is sent a second time to another instance; the first answer is used and
+ * the other request cancelled. Hedges are capped to a share of the requests,
+ * so an overall slow service does not get twice the load.
+ */
+public class HedgedWebClients {
+
+    static final int SAMPLES = 1000;
+    static final int MIN_SAMPLES = 20;
+    private static final int RECOMPUTE_EVERY = 50;
+    private static final double MAX_BUDGET = 10;
+
+    private final List<WebClient> clients;
+    private final int percentile;
+    private final double hedgesPerRequest;
+    private final Duration minDelay;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter hedges;
+
+    private final long[] latencies = new long[SAMPLES];
+    private int position;
+    private int recorded;
+    private int sinceRecompute;
+    private volatile long hedgeDelayNanos = -1;
+    private double budget;
+
+    /**
+     * @param name            name of the downstream service, used to tag the metrics
+     * @param clients         web clients of the instances of the service
+     * @param percentile      latency percentile after which a hedge is sent
+     * @param maxHedgePercent percentage of the hedged requests that may be sent twice
+     * @param minDelay        shortest wait before sending a hedge
+     * @param registry        where the metrics of the hedges are registered
+     */
+    public HedgedWebClients(
+            String name,
+            List<WebClient> clients,
+            int percentile,
+            int maxHedgePercent,
+            Duration minDelay,
+            MeterRegistry registry
+    ) {
+        this.clients = new ArrayList<>(clients);
+        this.percentile = percentile;
+        this.hedgesPerRequest = maxHedgePercent / 100d;
+        this.minDelay = minDelay;
+
+        this.hedges = Counter.builder("downstream.hedges")
+                .description("Requests sent a second time to another instance")
+                .tag("service", name)
+                .register(registry);
+        Gauge.builder("downstream.hedge.delay", this, hedged -> hedged.hedgeDelayNanos / 1e6)
+                .description("Milliseconds after which a request is hedged, negative while not hedging")
+                .tag("service", name)
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    /**
+     * Creates the web clients of the given base URLs.
+     *
+     * @param endpoints comma separated base URLs of the instances of a service
+     * @param builder   builds the web clients, with the filters and codecs they share
+     * @return a web client per base URL
+     */
+    public static List<WebClient> create(String endpoints, WebClient.Builder builder) {
+        List<WebClient> clients = new ArrayList<>();
+
+        Arrays.stream(endpoints.split(","))
+                .map(String::trim)
+                .filter(endpoint -> !endpoint.isEmpty())
+                .forEach(endpoint -> clients.add(builder.clone().baseUrl(endpoint).build()));
+
+        return clients;
+    }
+
+    /**
+     * Sends a request to the next instance, hedging it with a request to
+     * another instance if it takes longer than the tracked percentile.
+     * The hedge, sent from a timer thread, is traced within the span
+     * current when the request was subscribed to.
+     * A failed request waits for its hedge, and fails only if the hedge
+     * fails too or is not sent.
+     *
+     * @param request issues the request with the given web client
+     * @param <T>     the type of the response
+     * @return a Mono emitting the first response
+     */
+    public <T> Mono<T> exchange(Function<WebClient, Mono<T>> request) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            int primary = this.nextIndex();
+            Mono<T> first = this.timed(request.apply(this.clients.get(primary)), start);
+            long delay = this.hedgeDelayNanos;
+
+            if (this.clients.size() < 2 || delay < 0) {
+                return first;
+            }
+
+            Attempts attempts = new Attempts(2);
+            WebClient other = this.clients.get((primary + 1) % this.clients.size());
+            Mono<T> hedge = Mono.delay(Duration.ofNanos(Math.max(delay, this.minDelay.toNanos())))
+                    .then(Mono.defer(() -> {
+                        if (!this.tryAcquireHedge()) {
+                            return attempts.<T>failed(null);
+                        }
+
+                        this.hedges.increment();
+                        return this.timed(request.apply(other), start).onErrorResume(attempts::failed);
+                    }));
+
+            this.earnHedge();
+
+            return Mono.first(first.onErrorResume(attempts::failed), hedge);
+        }).subscriberContext(ReactiveTracer.withCurrentSpan());
+    }
+
+    /**
+     * Sends a request to the next instance without hedging it, for requests
+     * too expensive to be sent twice.
+     *
+     * @param request issues the request with the given web client
+     * @param <T>     the type of the response
+     * @return a Mono emitting the response
+     */
+    public <T> Mono<T> exchangeOnce(Function<WebClient, Mono<T>> request) {
+        return Mono.defer(() -> request.apply(this.clients.get(this.nextIndex())));
+    }
+
+    /**
+     * @return nanoseconds after which a request is hedged, or -1 while
+     * too few latencies were observed
+     */
+    public long getHedgeDelayNanos() {
+        return this.hedgeDelayNanos;
+    }
+
+    private int nextIndex() {
+        return Math.floorMod(this.next.getAndIncrement(), this.clients.size());
+    }
+
+    /**
+     * Records the latency of an attempt, measured from the start of the
+     * request. An attempt cancelled because the other one answered first
+     * is recorded too, as it took at least that long.
+     */
+    private <T> Mono<T> timed(Mono<T> request, long start) {
+        return request
+                .doOnSuccess(response -> this.record(System.nanoTime() - start))
+                .doOnCancel(() -> this.record(System.nanoTime() - start));
+    }
+
+    synchronized void record(long latencyNanos) {
+        this.latencies[this.position] = latencyNanos;
+        this.position = (this.position + 1) % SAMPLES;
+        this.recorded = Math.min(this.recorded + 1, SAMPLES);
+
+        if (this.recorded >= MIN_SAMPLES
+                && (this.hedgeDelayNanos < 0 || ++this.sinceRecompute >= RECOMPUTE_EVERY)) {
+            this.sinceRecompute = 0;
+
+            long[] sorted = Arrays.copyOf(this.latencies, this.recorded);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(sorted.length * this.percentile / 100d);
+            this.hedgeDelayNanos = sorted[Math.max(0, rank - 1)];
+        }
+    }
+
+    private synchronized void earnHedge() {
+        this.budget = Math.min(MAX_BUDGET, this.budget + this.hedgesPerRequest);
+    }
+
+    private synchronized boolean tryAcquireHedge() {
+        if (this.budget < 1) {
+            return false;
+        }
+
+        this.budget--;
+        return true;
+    }
+
+    /**
+     * The attempts of a request that may still answer. A failed attempt is
+     * ignored while another one may still answer, so that a fast error does
+     * not win over a slower success; the request fails with the last error
+     * once every attempt failed.
+     */
+    private static final class Attempts {
+
+        private final AtomicInteger remaining;
+        private volatile Throwable error;
+
+        Attempts(int count) {
+            this.remaining = new AtomicInteger(count);
+        }
+
+        /**
+         * @param error why the attempt failed, or null if it was not sent
+         * @return a Mono that never emits while another attempt may answer,
+         * else a Mono emitting the last error
+         */
+        <T> Mono<T> failed(Throwable error) {
+            if (error != null) {
+                this.error = error;
+            }
+
+            if (this.remaining.decrementAndGet() > 0) {
+                return Mono.never();
+            }
+
+            return Mono.error(this.error);
+        }
+    }
+}
@@ -1,7 +1,8 @@
 package com.udacity.vehicles.client.maps;
 
 /**
- * Declares a class to store an address, city, state and zip code.
+ * Declares a class to store an address, city, state and zip code. Addresses
+ * resolved in a batch also carry the coordinate they were resolved for.
  */
 public class Address {
 
@@ -9,6 +10,8 @@ public class Address {
     private String city;
     private String state;
     private String zip;
+    private Double lat;
+    private Double lon;
 
     public Address() {
     }
@@ -44,4 +47,20 @@ public class Address {
     public void setZip(String zip) {
         this.zip = zip;
     }
+
+    public Double getLat() {
+        return lat;
+    }
+
+    public void setLat(Double lat) {
+        this.lat = lat;
+    }
+
+    public Double getLon() {
+        return lon;
+    }
+
+    public void setLon(Double lon) {
+        this.lon = lon;
+    }
 }
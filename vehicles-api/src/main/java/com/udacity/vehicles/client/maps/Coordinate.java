@@ -0,0 +1,51 @@
+package com.udacity.vehicles.client.maps;
+
+import java.util.Objects;
+
+/**
+ * Declares a latitude and longitude pair sent to the Maps client.
+ * Equal coordinates resolve to the same address.
+ */
+public class Coordinate {
+
+    private final Double lat;
+    private final Double lon;
+
+    public Coordinate(Double lat, Double lon) {
+        this.lat = lat;
+        this.lon = lon;
+    }
+
+    public Double getLat() {
+        return lat;
+    }
+
+    public Double getLon() {
+        return lon;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Coordinate that = (Coordinate) o;
+        return Objects.equals(lat, that.lat) && Objects.equals(lon, that.lon);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(lat, lon);
+    }
+
+    @Override
+    public String toString() {
+        return "Coordinate{" +
+                "lat=" + lat +
+                ", lon=" + lon +
+                '}';
+    }
+}
@@ -0,0 +1,120 @@
+package com.udacity.vehicles.client.maps;
+
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Caches addresses by grid cell: coordinates are rounded to a fixed number of
+ * decimals, so every car parked within the same cell shares one address.
+ * Concurrent misses for the same cell share a single load; failed loads are
+ * not cached.
+ */
+public class GeocodeCache {
+
+    private final int precision;
+    private final AsyncLoadingCache<Coordinate, Address> cache;
+
+    /**
+     * @param precision   decimals kept from latitude and longitude; 4 makes cells of about 11 meters
+     * @param maximumSize number of cells kept at most
+     * @param ttl         how long the address of a cell is served before being requested again
+     * @param loader      requests the address of one cell
+     * @param batchLoader requests the addresses of several cells
+     */
+    public GeocodeCache(
+            int precision,
+            long maximumSize,
+            Duration ttl,
+            Function<Coordinate, Mono<Address>> loader,
+            Function<List<Coordinate>, Mono<Map<Coordinate, Address>>> batchLoader
+    ) {
+        this.precision = precision;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync(new AsyncCacheLoader<Coordinate, Address>() {
+                    @Override
+                    public CompletableFuture<Address> asyncLoad(Coordinate cell, Executor executor) {
+                        return loader.apply(cell).toFuture();
+                    }
+
+                    @Override
+                    public CompletableFuture<Map<Coordinate, Address>> asyncLoadAll(
+                            Iterable<? extends Coordinate> cells,
+                            Executor executor
+                    ) {
+                        List<Coordinate> missing = new ArrayList<>();
+                        cells.forEach(missing::add);
+                        return batchLoader.apply(missing).toFuture();
+                    }
+                });
+    }
+
+    /**
+     * @param lat latitude of a location
+     * @param lon longitude of a location
+     * @return the grid cell the location falls into
+     */
+    public Coordinate cellOf(Double lat, Double lon) {
+        return new Coordinate(this.quantize(lat), this.quantize(lon));
+    }
+
+    /**
+     * @param cell a grid cell, as returned by {@link #cellOf(Double, Double)}
+     * @return a Mono emitting the address of the cell, loading it first if needed
+     */
+    public Mono<Address> get(Coordinate cell) {
+        return Mono.fromFuture(this.cache.get(cell));
+    }
+
+    /**
+     * @param cells grid cells, as returned by {@link #cellOf(Double, Double)}
+     * @return a Mono emitting the addresses of the cells, loading the
+     * missing ones with a single call to the batch loader
+     */
+    public Mono<Map<Coordinate, Address>> getAll(Collection<Coordinate> cells) {
+        return Mono.fromFuture(this.cache.getAll(cells));
+    }
+
+    /**
+     * Publishes the hit, miss, load and eviction counts of the cache as metrics.
+     *
+     * @param registry where the metrics are registered
+     * @param name     name of the cache, used to tag the metrics
+     */
+    public void bindTo(MeterRegistry registry, String name) {
+        CaffeineCacheMetrics.monitor(registry, this.cache.synchronous(), name);
+    }
+
+    /**
+     * @return hit, miss, load and eviction counts since the cache was created
+     */
+    public CacheStats stats() {
+        return this.cache.synchronous().stats();
+    }
+
+    private Double quantize(Double degrees) {
+        if (degrees == null) {
+            return null;
+        }
+
+        return BigDecimal.valueOf(degrees).setScale(this.precision, RoundingMode.HALF_UP).doubleValue();
+    }
+}
@@ -1,55 +1,281 @@
 package com.udacity.vehicles.client.maps;
 
+import com.udacity.tracing.ReactiveTracer;
+import com.udacity.tracing.Span;
+import com.udacity.vehicles.client.DownstreamGuard;
+import com.udacity.vehicles.client.HedgedWebClients;
 import com.udacity.vehicles.domain.Location;
-import org.modelmapper.ModelMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.*;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.util.Objects;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
 
 /**
  * Implements a class to interface with the Maps Client for location data.
+ * Lookups are timed by outcome: {@code success}, or {@code fallback} when
+ * locations are left without address. Every lookup is traced, and the
+ * failures are logged within the trace of the lookup.
  */
 @Component
 public class MapsClient {
 
     private static final Logger log = LoggerFactory.getLogger(MapsClient.class);
 
-    private final WebClient client;
-    private final ModelMapper mapper;
+    private final HedgedWebClients clients;
+    private final DownstreamGuard guard;
+    private final int maxBatchSize;
+    private final GeocodeCache geocodeCache;
+    private final MeterRegistry registry;
+    private final ReactiveTracer tracer;
+    private final Timer singleSuccesses;
+    private final Timer singleFallbacks;
+    private final Timer batchSuccesses;
+    private final Timer batchFallbacks;
 
-    public MapsClient(@Qualifier("maps") WebClient maps, ModelMapper mapper) {
-        this.client = maps;
-        this.mapper = mapper;
+    /**
+     * @param maps             web clients of the instances of the maps service
+     * @param guard            bounds the calls to the maps service
+     * @param maxBatchSize     maximum number of coordinates sent in one batch request
+     * @param cachePrecision   decimals of latitude and longitude that tell two cached cells apart
+     * @param cacheMaximumSize number of cells cached at most
+     * @param cacheTtlSeconds  how long the address of a cell is cached
+     * @param registry         where the lookup and cache metrics are registered
+     * @param tracer           traces the lookups
+     */
+    public MapsClient(
+            @Qualifier("maps") HedgedWebClients maps,
+            @Qualifier("mapsGuard") DownstreamGuard guard,
+            @Value("${maps.batch.max-size:500}") int maxBatchSize,
+            @Value("${maps.cache.precision:4}") int cachePrecision,
+            @Value("${maps.cache.maximum-size:10000}") long cacheMaximumSize,
+            @Value("${maps.cache.ttl-seconds:3600}") long cacheTtlSeconds,
+            MeterRegistry registry,
+            ReactiveTracer tracer
+    ) {
+        this.clients = maps;
+        this.guard = guard;
+        this.maxBatchSize = maxBatchSize;
+        this.geocodeCache = new GeocodeCache(
+                cachePrecision,
+                cacheMaximumSize,
+                Duration.ofSeconds(cacheTtlSeconds),
+                this::fetchAddress,
+                this::fetchAddresses
+        );
+        this.geocodeCache.bindTo(registry, "addresses");
+
+        this.registry = registry;
+        this.tracer = tracer;
+        this.singleSuccesses = lookups(registry, "single", "success");
+        this.singleFallbacks = lookups(registry, "single", "fallback");
+        this.batchSuccesses = lookups(registry, "batch", "success");
+        this.batchFallbacks = lookups(registry, "batch", "fallback");
     }
 
     /**
      * Gets an address from the Maps client, given latitude and longitude.
+     * The wait is bounded by the maps timeout.
      *
      * @param location An object containing "lat" and "lon" of location
      * @return An updated location including street, city, state and zip,
      * or an exception message noting the Maps service is down
      */
     public Location getAddress(Location location) {
-        try {
-            Address address = client
-                    .get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/maps/")
-                            .queryParam("lat", location.getLat())
-                            .queryParam("lon", location.getLon())
-                            .build()
-                    )
-                    .retrieve().bodyToMono(Address.class).block();
-
-            mapper.map(Objects.requireNonNull(address), location);
-
-            return location;
-        } catch (Exception e) {
-            log.warn("Map service is down");
-            return location;
+        return this.getAddressAsync(location).block();
+    }
+
+    /**
+     * Gets an address from the Maps client without blocking the caller.
+     * Addresses are cached by grid cell, so nearby locations are resolved once.
+     *
+     * @param location An object containing "lat" and "lon" of location
+     * @return A Mono emitting the location updated with street, city, state
+     * and zip, or the bare location when the Maps service is down.
+     * It never completes empty nor with an error.
+     */
+    public Mono<Location> getAddressAsync(Location location) {
+        return this.tracer.trace("address lookup", span -> {
+            Timer.Sample sample = Timer.start(this.registry);
+
+            return this.geocodeCache
+                    .get(this.geocodeCache.cellOf(location.getLat(), location.getLon()))
+                    .map(address -> {
+                        copyAddress(address, location);
+                        location.markAddressResolved(LocalDateTime.now());
+                        span.tag("outcome", "success");
+                        sample.stop(this.singleSuccesses);
+                        return location;
+                    })
+                    .onErrorResume(e -> {
+                        span.error(e);
+                        try (Span.Scope ignored = span.makeCurrent()) {
+                            log.warn("Map service is down");
+                        }
+                        return Mono.empty();
+                    })
+                    .switchIfEmpty(Mono.fromSupplier(() -> {
+                        span.tag("outcome", "fallback");
+                        sample.stop(this.singleFallbacks);
+                        return location;
+                    }));
+        });
+    }
+
+    /**
+     * Gets the addresses of several locations with as few batch requests
+     * to the Maps client as possible. Locations falling into the same
+     * grid cell are resolved only once.
+     *
+     * @param locations Objects containing "lat" and "lon" of each location
+     * @return A Mono emitting the given locations, updated including street,
+     * city, state and zip, or left bare when the Maps service is down.
+     * It never completes empty nor with an error.
+     */
+    public Mono<List<Location>> getAddresses(List<Location> locations) {
+        Map<Coordinate, List<Location>> locationsByCell = new LinkedHashMap<>();
+        locations.forEach(location -> locationsByCell
+                .computeIfAbsent(this.geocodeCache.cellOf(location.getLat(), location.getLon()), c -> new ArrayList<>())
+                .add(location));
+
+        if (locationsByCell.isEmpty()) {
+            return Mono.just(locations);
+        }
+
+        return this.tracer.trace("address batch lookup", span -> {
+            Timer.Sample sample = Timer.start(this.registry);
+            span.tag("cell.count", locationsByCell.size());
+
+            return this.geocodeCache
+                    .getAll(locationsByCell.keySet())
+                    .map(addresses -> {
+                        LocalDateTime resolvedAt = LocalDateTime.now();
+                        addresses.forEach((cell, address) -> locationsByCell
+                                .get(cell)
+                                .forEach(location -> {
+                                    copyAddress(address, location);
+                                    location.markAddressResolved(resolvedAt);
+                                }));
+                        return this.batchSuccesses;
+                    })
+                    .onErrorResume(e -> {
+                        span.error(e);
+                        try (Span.Scope ignored = span.makeCurrent()) {
+                            log.warn("Map service is down");
+                        }
+                        return Mono.just(this.batchFallbacks);
+                    })
+                    .map(outcome -> {
+                        span.tag("outcome", outcome == this.batchSuccesses ? "success" : "fallback");
+                        sample.stop(outcome);
+                        return locations;
+                    });
+        });
+    }
+
+    /**
+     * @return the cache holding the addresses resolved so far
+     */
+    public GeocodeCache getGeocodeCache() {
+        return this.geocodeCache;
+    }
+
+    /**
+     * Copies the non-null parts of an address into a location.
+     */
+    private static void copyAddress(Address address, Location location) {
+        if (address.getAddress() != null) {
+            location.setAddress(address.getAddress());
+        }
+        if (address.getCity() != null) {
+            location.setCity(address.getCity());
+        }
+        if (address.getState() != null) {
+            location.setState(address.getState());
         }
+        if (address.getZip() != null) {
+            location.setZip(address.getZip());
+        }
+    }
+
+    private static Timer lookups(MeterRegistry registry, String lookup, String outcome) {
+        return Timer.builder("vehicles.address.lookups")
+                .description("Time taken to resolve the addresses of locations, cached or not, by outcome")
+                .tag("lookup", lookup)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private Mono<Address> fetchAddress(Coordinate coordinate) {
+        return this.guard.protect(() -> this.clients.exchange(client -> client
+                .get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/maps/")
+                        .queryParam("lat", coordinate.getLat())
+                        .queryParam("lon", coordinate.getLon())
+                        .build()
+                )
+                .retrieve().bodyToMono(Address.class)));
+    }
+
+    private Mono<Map<Coordinate, Address>> fetchAddresses(List<Coordinate> coordinates) {
+        Map<Coordinate, Address> addresses = new HashMap<>();
+
+        return Flux.fromIterable(coordinates)
+                .buffer(this.maxBatchSize)
+                .concatMap(batch -> this.fetchBatch(batch)
+                        .flatMap(batchAddresses -> matchBatch(batch, batchAddresses))
+                        .doOnNext(addresses::putAll))
+                .then(Mono.fromSupplier(() -> addresses));
+    }
+
+    private Mono<List<Address>> fetchBatch(List<Coordinate> coordinates) {
+        return this.guard.protect(() -> this.clients.exchangeOnce(client -> client
+                .post()
+                .uri(uriBuilder -> uriBuilder.path("/maps/batch").build())
+                .syncBody(coordinates)
+                .retrieve().bodyToFlux(Address.class)
+                .collectList()));
+    }
+
+    /**
+     * Matches the addresses of a batch with its coordinates: by the coordinate
+     * an address carries, else by position. A batch answered with another
+     * number of addresses, or with an address for a coordinate it did not
+     * ask for, fails as a whole, so that no address is cached for the wrong cell.
+     */
+    private static Mono<Map<Coordinate, Address>> matchBatch(List<Coordinate> batch, List<Address> addresses) {
+        if (addresses.size() != batch.size()) {
+            return Mono.error(new IllegalStateException(
+                    "Maps returned " + addresses.size() + " addresses for " + batch.size() + " coordinates"));
+        }
+
+        Set<Coordinate> requested = new HashSet<>(batch);
+        Map<Coordinate, Address> matched = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Address address = addresses.get(i);
+            Coordinate coordinate = address.getLat() == null || address.getLon() == null
+                    ? batch.get(i)
+                    : new Coordinate(address.getLat(), address.getLon());
+
+            if (!requested.contains(coordinate)) {
+                return Mono.error(new IllegalStateException("Maps returned an address for " + coordinate
+                        + ", which was not requested"));
+            }
+            matched.put(coordinate, address);
+        }
+
+        if (matched.size() != requested.size()) {
+            return Mono.error(new IllegalStateException("Maps did not return an address for every coordinate"));
+        }
+
+        return Mono.just(matched);
     }
 }
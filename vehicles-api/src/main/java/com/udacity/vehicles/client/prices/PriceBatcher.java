@@ -0,0 +1,83 @@
+package com.udacity.vehicles.client.prices;
+
+import com.udacity.tracing.ReactiveTracer;
+import com.udacity.tracing.Span;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.UnicastProcessor;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Collects single price lookups arriving within a short window and
+ * resolves them with one batch request to the pricing service. A batch
+ * request is traced within the span of the first lookup that joined it.
+ */
+class PriceBatcher {
+
+    private final Function<Collection<Long>, Mono<Map<Long, String>>> batchLoader;
+    private final FluxSink<PendingLookup> lookups;
+
+    /**
+     * @param batchLoader  requests the formatted prices of several vehicles at once
+     * @param maxBatchSize number of lookups that triggers a batch before the window ends
+     * @param window       how long a lookup may wait for others to join its batch
+     */
+    PriceBatcher(Function<Collection<Long>, Mono<Map<Long, String>>> batchLoader, int maxBatchSize, Duration window) {
+        this.batchLoader = batchLoader;
+
+        UnicastProcessor<PendingLookup> processor = UnicastProcessor.create();
+        this.lookups = processor.sink();
+
+        processor
+                .bufferTimeout(maxBatchSize, window)
+                .flatMap(this::dispatch)
+                .subscribe();
+    }
+
+    /**
+     * Queues a lookup for the next batch.
+     *
+     * @param vehicleId ID number of the vehicle for which to get the price
+     * @return a Mono emitting the formatted price, completing empty when the
+     * vehicle has no price or with an error when the batch request failed
+     */
+    Mono<String> submit(Long vehicleId) {
+        return Mono.create(sink -> this.lookups.next(new PendingLookup(vehicleId, Span.current(), sink)));
+    }
+
+    private Mono<Void> dispatch(List<PendingLookup> batch) {
+        Set<Long> vehicleIds = batch.stream()
+                .map(lookup -> lookup.vehicleId)
+                .collect(Collectors.toSet());
+        Span span = batch.stream()
+                .map(lookup -> lookup.span)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+
+        return this.batchLoader.apply(vehicleIds)
+                .defaultIfEmpty(Collections.emptyMap())
+                .doOnNext(prices -> batch.forEach(lookup -> lookup.sink.success(prices.get(lookup.vehicleId))))
+                .doOnError(e -> batch.forEach(lookup -> lookup.sink.error(e)))
+                .onErrorResume(e -> Mono.empty())
+                .then()
+                .subscriberContext(ReactiveTracer.withSpan(span));
+    }
+
+    private static final class PendingLookup {
+        private final Long vehicleId;
+        private final Span span;
+        private final MonoSink<String> sink;
+
+        private PendingLookup(Long vehicleId, Span span, MonoSink<String> sink) {
+            this.vehicleId = vehicleId;
+            this.span = span;
+            this.sink = sink;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.udacity.vehicles.client.prices;
+
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Caches formatted vehicle prices. Reads never lock, eviction follows the
+ * W-TinyLFU policy, and concurrent misses for the same vehicle share a single
+ * load. Prices that could not be retrieved are cached as well, for a shorter
+ * time, so an outage of the pricing service does not turn into a retry storm.
+ */
+public class PriceCache {
+
+    private final AsyncLoadingCache<Long, String> cache;
+
+    /**
+     * @param maximumSize number of prices kept at most
+     * @param ttl         how long a price is served before being requested again
+     * @param negativeTtl how long the unavailable marker is served instead of a price
+     * @param unavailable the marker loaded for vehicles whose price could not be retrieved
+     * @param loader      requests the price of one vehicle; must emit a price or the marker
+     * @param batchLoader requests the prices of several vehicles; must emit a price or
+     *                    the marker for each of them
+     */
+    public PriceCache(
+            long maximumSize,
+            Duration ttl,
+            Duration negativeTtl,
+            String unavailable,
+            Function<Long, Mono<String>> loader,
+            Function<Set<Long>, Mono<Map<Long, String>>> batchLoader
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new PriceExpiry(ttl, negativeTtl, unavailable))
+                .recordStats()
+                .buildAsync(new AsyncCacheLoader<Long, String>() {
+                    @Override
+                    public CompletableFuture<String> asyncLoad(Long vehicleId, Executor executor) {
+                        return loader.apply(vehicleId).toFuture();
+                    }
+
+                    @Override
+                    public CompletableFuture<Map<Long, String>> asyncLoadAll(
+                            Iterable<? extends Long> vehicleIds,
+                            Executor executor
+                    ) {
+                        Set<Long> ids = new HashSet<>();
+                        vehicleIds.forEach(ids::add);
+                        return batchLoader.apply(ids).toFuture();
+                    }
+                });
+    }
+
+    /**
+     * @param vehicleId ID number of the vehicle
+     * @return a Mono emitting the cached price, loading it first if needed
+     */
+    public Mono<String> get(Long vehicleId) {
+        return Mono.fromFuture(this.cache.get(vehicleId));
+    }
+
+    /**
+     * @param vehicleIds ID numbers of the vehicles
+     * @return a Mono emitting the cached prices, loading the missing ones
+     * with a single call to the batch loader
+     */
+    public Mono<Map<Long, String>> getAll(Collection<Long> vehicleIds) {
+        return Mono.fromFuture(this.cache.getAll(vehicleIds));
+    }
+
+    /**
+     * Publishes the hit, miss, load and eviction counts of the cache as metrics.
+     *
+     * @param registry where the metrics are registered
+     * @param name     name of the cache, used to tag the metrics
+     */
+    public void bindTo(MeterRegistry registry, String name) {
+        CaffeineCacheMetrics.monitor(registry, this.cache.synchronous(), name);
+    }
+
+    /**
+     * @return hit, miss, load and eviction counts since the cache was created
+     */
+    public CacheStats stats() {
+        return this.cache.synchronous().stats();
+    }
+
+    /**
+     * @return approximate number of cached prices
+     */
+    public long size() {
+        return this.cache.synchronous().estimatedSize();
+    }
+
+    private static final class PriceExpiry implements Expiry<Long, String> {
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+        private final String unavailable;
+
+        private PriceExpiry(Duration ttl, Duration negativeTtl, String unavailable) {
+            this.ttlNanos = ttl.toNanos();
+            this.negativeTtlNanos = negativeTtl.toNanos();
+            this.unavailable = unavailable;
+        }
+
+        @Override
+        public long expireAfterCreate(Long vehicleId, String price, long currentTime) {
+            return this.unavailable.equals(price) ? this.negativeTtlNanos : this.ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long vehicleId, String price, long currentTime, long currentDuration) {
+            return this.expireAfterCreate(vehicleId, price, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long vehicleId, String price, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
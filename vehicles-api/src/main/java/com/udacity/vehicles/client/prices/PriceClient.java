@@ -1,51 +1,97 @@
 package com.udacity.vehicles.client.prices;
 
+import com.udacity.tracing.ReactiveTracer;
+import com.udacity.tracing.Span;
+import com.udacity.vehicles.client.DownstreamGuard;
+import com.udacity.vehicles.client.DownstreamRejectedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.*;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * Implements a class to interface with the Pricing Client for price data.
+ * Lookups are timed by outcome: {@code success}, or {@code fallback} when
+ * the price has to be consulted. Every lookup is traced, and a failed
+ * request is logged within the trace of the lookup that sent it.
  */
 @Component
 public class PriceClient {
-    private static final int DEFAULT_MAX_ENTRIES = 20;
+    private static final String PRICE_UNAVAILABLE = "(consult price)";
 
     private static final Logger log = LoggerFactory.getLogger(PriceClient.class);
     private final WebClient client;
-    private final Map<Long, String> priceCache = Collections.synchronizedMap(new PriceCache(DEFAULT_MAX_ENTRIES));
+    private final DownstreamGuard guard;
+    private final int maxBatchSize;
+    private final PriceBatcher batcher;
+    private final PriceCache priceCache;
+    private final MeterRegistry registry;
+    private final ReactiveTracer tracer;
+    private final Timer singleSuccesses;
+    private final Timer singleFallbacks;
+    private final Timer batchSuccesses;
+    private final Timer batchFallbacks;
 
     /**
-     * small cache implementation to hold the last 20 requested vehicle prices
+     * @param pricing            web client of the pricing service
+     * @param guard              bounds the calls to the pricing service
+     * @param maxBatchSize       maximum number of vehicles sent in one batch request
+     * @param batchWindowMs      how long single lookups wait to be merged into one
+     *                           batch request; 0 sends every lookup on its own
+     * @param cacheMaximumSize   number of prices cached at most
+     * @param cacheTtlSeconds    how long a price is cached
+     * @param negativeTtlSeconds how long a vehicle whose price could not be
+     *                           retrieved is answered without asking again
+     * @param registry           where the lookup and cache metrics are registered
+     * @param tracer             traces the lookups
      */
-    private static class PriceCache extends LinkedHashMap<Long, String> {
-        private final int maxEntries;
-
-        public PriceCache(int maxEntries) {
-            super(maxEntries);
-            this.maxEntries = maxEntries;
-        }
-
-        @Override
-        protected boolean removeEldestEntry(Map.Entry eldest) {
-            return this.size() > this.maxEntries;
-        }
-    }
-
-    public PriceClient(@Qualifier("pricing") WebClient pricing) {
+    public PriceClient(
+            @Qualifier("pricing") WebClient pricing,
+            @Qualifier("pricingGuard") DownstreamGuard guard,
+            @Value("${pricing.batch.max-size:100}") int maxBatchSize,
+            @Value("${pricing.batch.window-ms:5}") long batchWindowMs,
+            @Value("${pricing.cache.maximum-size:10000}") long cacheMaximumSize,
+            @Value("${pricing.cache.ttl-seconds:600}") long cacheTtlSeconds,
+            @Value("${pricing.cache.negative-ttl-seconds:10}") long negativeTtlSeconds,
+            MeterRegistry registry,
+            ReactiveTracer tracer
+    ) {
         this.client = pricing;
-    }
+        this.guard = guard;
+        this.maxBatchSize = maxBatchSize;
+        this.batcher = batchWindowMs > 0
+                ? new PriceBatcher(this::fetchPrices, maxBatchSize, Duration.ofMillis(batchWindowMs))
+                : null;
+        this.priceCache = new PriceCache(
+                cacheMaximumSize,
+                Duration.ofSeconds(cacheTtlSeconds),
+                Duration.ofSeconds(negativeTtlSeconds),
+                PRICE_UNAVAILABLE,
+                this::loadPrice,
+                this::loadPrices
+        );
+        this.priceCache.bindTo(registry, "prices");
 
-    // In a real-world application we'll want to add some resilience
-    // to this method with retries/CB/failover capabilities
-    // We may also want to cache the results so we don't need to
-    // do a request every time
+        this.registry = registry;
+        this.tracer = tracer;
+        this.singleSuccesses = lookups(registry, "single", "success");
+        this.singleFallbacks = lookups(registry, "single", "fallback");
+        this.batchSuccesses = lookups(registry, "batch", "success");
+        this.batchFallbacks = lookups(registry, "batch", "fallback");
+    }
 
     /**
      * Gets a vehicle price from the pricing client, given vehicle ID.
+     * The wait is bounded by the pricing timeout.
      *
      * @param vehicleId ID number of the vehicle for which to get the price
      * @return Currency and price of the requested vehicle,
@@ -53,25 +99,153 @@ public class PriceClient {
      * service is down.
      */
     public String getPrice(Long vehicleId) {
-        if (this.priceCache.containsKey(vehicleId)) {
-            return this.priceCache.get(vehicleId);
+        return this.getPriceAsync(vehicleId).block();
+    }
+
+    /**
+     * Gets a vehicle price from the pricing client without blocking the caller.
+     * Lookups issued concurrently are merged into a single batch request.
+     *
+     * @param vehicleId ID number of the vehicle for which to get the price
+     * @return a Mono emitting the formatted price, or the note that the
+     * price has to be consulted when the vehicle ID is invalid or the
+     * service is down. It never completes empty nor with an error.
+     */
+    public Mono<String> getPriceAsync(Long vehicleId) {
+        if (vehicleId == null) {
+            return Mono.just(PRICE_UNAVAILABLE);
         }
 
-        try {
-            Price price = client
-                    .get()
-                    .uri(uriBuilder -> uriBuilder.path("services/price/" + vehicleId).build())
-                    .retrieve().bodyToMono(Price.class).block();
+        return this.tracer.trace("price lookup", span -> {
+            Timer.Sample sample = Timer.start(this.registry);
+            span.tag("vehicle.id", vehicleId);
+
+            return this.priceCache
+                    .get(vehicleId)
+                    .doOnNext(price -> {
+                        boolean unavailable = PRICE_UNAVAILABLE.equals(price);
+                        span.tag("outcome", unavailable ? "fallback" : "success");
+                        sample.stop(unavailable ? this.singleFallbacks : this.singleSuccesses);
+                    });
+        });
+    }
+
+    /**
+     * Gets the prices of several vehicles, requesting the ones not cached
+     * with as few batch requests to the pricing client as possible.
+     *
+     * @param vehicleIds ID numbers of the vehicles for which to get the prices
+     * @return a Mono emitting the formatted price of every requested vehicle, or
+     * the note that the price has to be consulted for the vehicles without price.
+     * It never completes empty nor with an error.
+     */
+    public Mono<Map<Long, String>> getPrices(Collection<Long> vehicleIds) {
+        List<Long> ids = vehicleIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+
+        return this.tracer.trace("price batch lookup", span -> {
+            Timer.Sample sample = Timer.start(this.registry);
+            span.tag("vehicle.count", ids.size());
+
+            return this.priceCache
+                    .getAll(ids)
+                    .doOnNext(prices -> {
+                        boolean unavailable = prices.containsValue(PRICE_UNAVAILABLE);
+                        span.tag("outcome", unavailable ? "fallback" : "success");
+                        sample.stop(unavailable ? this.batchFallbacks : this.batchSuccesses);
+                    });
+        });
+    }
+
+    /**
+     * @param price a price returned by this client
+     * @return whether it is an actual price, rather than the note that the
+     * price has to be consulted
+     */
+    public static boolean isAvailable(String price) {
+        return price != null && !PRICE_UNAVAILABLE.equals(price);
+    }
+
+    /**
+     * @return the cache holding the prices retrieved so far
+     */
+    public PriceCache getPriceCache() {
+        return this.priceCache;
+    }
+
+    private Mono<String> loadPrice(Long vehicleId) {
+        Span span = Span.current();
+        Mono<String> lookup = this.batcher != null
+                ? this.batcher.submit(vehicleId)
+                : this.fetchPrice(vehicleId);
+
+        return lookup
+                .onErrorResume(e -> {
+                    logFailure(span, e, "vehicle " + vehicleId);
+                    return Mono.empty();
+                })
+                .defaultIfEmpty(PRICE_UNAVAILABLE);
+    }
+
+    private Mono<Map<Long, String>> loadPrices(Set<Long> vehicleIds) {
+        Span span = Span.current();
+        Map<Long, String> prices = new HashMap<>();
+
+        return Flux.fromIterable(vehicleIds)
+                .buffer(this.maxBatchSize)
+                .flatMap(this::fetchPrices)
+                .onErrorResume(e -> {
+                    logFailure(span, e, "vehicles " + vehicleIds);
+                    return Mono.empty();
+                })
+                .doOnNext(prices::putAll)
+                .then(Mono.fromSupplier(() -> {
+                    vehicleIds.forEach(vehicleId -> prices.putIfAbsent(vehicleId, PRICE_UNAVAILABLE));
+                    return prices;
+                }));
+    }
 
-            String formattedPrice = String.format("%s %s", price.getCurrency(), price.getPrice());
+    private Mono<String> fetchPrice(Long vehicleId) {
+        return this.guard.protect(() -> client
+                .get()
+                .uri(uriBuilder -> uriBuilder.path("services/price/" + vehicleId).build())
+                .retrieve().bodyToMono(Price.class)
+                .map(this::format));
+    }
 
-            this.priceCache.putIfAbsent(vehicleId, formattedPrice);
+    private Mono<Map<Long, String>> fetchPrices(Collection<Long> vehicleIds) {
+        return this.guard.protect(() -> client
+                .post()
+                .uri(uriBuilder -> uriBuilder.path("services/price/batch").build())
+                .syncBody(vehicleIds)
+                .retrieve().bodyToFlux(Price.class)
+                .collect(Collectors.toMap(Price::getVehicleId, this::format)));
+    }
 
-            return formattedPrice;
-        } catch (Exception e) {
-            log.error("Unexpected error retrieving price for vehicle {}", vehicleId, e);
+    private static Timer lookups(MeterRegistry registry, String lookup, String outcome) {
+        return Timer.builder("vehicles.price.lookups")
+                .description("Time taken to get vehicle prices, cached or not, by outcome")
+                .tag("lookup", lookup)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * Logs a failed lookup with the trace ID of the lookup that loaded the price.
+     */
+    private static void logFailure(Span span, Throwable e, String vehicles) {
+        try (Span.Scope ignored = Span.inScope(span)) {
+            if (e instanceof DownstreamRejectedException) {
+                log.debug("Price of {} not requested: {}", vehicles, e.getMessage());
+            } else {
+                log.error("Unexpected error retrieving price for {}", vehicles, e);
+            }
         }
+    }
 
-        return "(consult price)";
+    private String format(Price price) {
+        return String.format("%s %s", price.getCurrency(), price.getPrice());
     }
 }
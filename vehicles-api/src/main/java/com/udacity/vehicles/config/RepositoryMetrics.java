@@ -0,0 +1,90 @@
+package com.udacity.vehicles.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * Times every call to the Spring Data repositories, tagged by repository,
+ * method and outcome, as {@code vehicles.repository.calls}. The timing
+ * wraps the whole call, transaction and query included. A returned
+ * {@link Stream} reads its rows while it is consumed: it is timed until it
+ * is closed, so it has to be closed to be recorded.
+ */
+@Component
+public class RepositoryMetrics implements BeanPostProcessor {
+
+    private final ObjectProvider<MeterRegistry> registry;
+
+    /**
+     * @param registry where the timers are registered; looked up on the first
+     *                 call, as post processors are created before the registry
+     */
+    public RepositoryMetrics(ObjectProvider<MeterRegistry> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof Repository && bean instanceof Advised) {
+            Advised repository = (Advised) bean;
+            String name = Arrays.stream(repository.getProxiedInterfaces())
+                    .filter(Repository.class::isAssignableFrom)
+                    .filter(type -> !type.getName().startsWith("org.springframework."))
+                    .findFirst()
+                    .map(Class::getSimpleName)
+                    .orElse(beanName);
+
+            repository.addAdvice(0, new RepositoryTimer(name));
+        }
+
+        return bean;
+    }
+
+    private final class RepositoryTimer implements MethodInterceptor {
+        private final String repository;
+
+        private RepositoryTimer(String repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            MeterRegistry registry = RepositoryMetrics.this.registry.getObject();
+            Timer.Sample sample = Timer.start(registry);
+            Object result;
+
+            try {
+                result = invocation.proceed();
+            } catch (Throwable e) {
+                this.stop(sample, registry, invocation, "error");
+                throw e;
+            }
+
+            if (result instanceof Stream) {
+                return ((Stream<?>) result).onClose(() -> this.stop(sample, registry, invocation, "success"));
+            }
+
+            this.stop(sample, registry, invocation, "success");
+            return result;
+        }
+
+        private void stop(Timer.Sample sample, MeterRegistry registry, MethodInvocation invocation, String outcome) {
+            sample.stop(Timer.builder("vehicles.repository.calls")
+                    .description("Time taken by the calls to a repository, by method and outcome")
+                    .tag("repository", this.repository)
+                    .tag("method", invocation.getMethod().getName())
+                    .tag("outcome", outcome)
+                    .register(registry));
+        }
+    }
+}
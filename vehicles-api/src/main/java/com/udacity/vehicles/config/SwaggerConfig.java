@@ -15,7 +15,7 @@ public class SwaggerConfig {
         return new Docket(DocumentationType.SWAGGER_2)
                 .select()
                 .apis(RequestHandlerSelectors.any())
-                .paths(PathSelectors.ant("/cars/**"))
+                .paths(PathSelectors.regex("/(cars|manufacturers)(/.*)?"))
                 .build()
                 .apiInfo(this.apiInfo())
                 .useDefaultResponseMessages(false);
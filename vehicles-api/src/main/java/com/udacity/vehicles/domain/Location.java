@@ -1,14 +1,20 @@
 package com.udacity.vehicles.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
 import javax.persistence.Embeddable;
-import javax.persistence.Transient;
 import javax.validation.constraints.NotNull;
 
 /**
  * Stores information about a given location.
  * Latitude and longitude must be provided, while other
- * location information must be gathered each time from
- * the maps API.
+ * location information is gathered from the maps API.
+ * The gathered address is stored along with the latitude and
+ * longitude it was resolved for, so it can be reused until
+ * the location changes.
  */
 @Embeddable
 public class Location {
@@ -19,18 +25,27 @@ public class Location {
     @NotNull
     private Double lon;
 
-    @Transient
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private String address;
 
-    @Transient
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private String city;
 
-    @Transient
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private String state;
 
-    @Transient
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private String zip;
 
+    @JsonIgnore
+    private Double resolvedLat;
+
+    @JsonIgnore
+    private Double resolvedLon;
+
+    @JsonIgnore
+    private LocalDateTime resolvedAt;
+
     public Location() {
     }
 
@@ -39,14 +54,38 @@ public class Location {
         this.lon = lon;
     }
 
+    /**
+     * Copies a location, including its address and when it was resolved.
+     *
+     * @param other the location to copy
+     */
+    public Location(Location other) {
+        this(other.lat, other.lon);
+        this.address = other.address;
+        this.city = other.city;
+        this.state = other.state;
+        this.zip = other.zip;
+        this.resolvedLat = other.resolvedLat;
+        this.resolvedLon = other.resolvedLon;
+        this.resolvedAt = other.resolvedAt;
+    }
+
     public Double getLat() {
         return lat;
     }
 
+    public void setLat(Double lat) {
+        this.lat = lat;
+    }
+
     public Double getLon() {
         return lon;
     }
 
+    public void setLon(Double lon) {
+        this.lon = lon;
+    }
+
     public String getAddress() {
         return address;
     }
@@ -78,4 +117,43 @@ public class Location {
     public void setZip(String zip) {
         this.zip = zip;
     }
+
+    @JsonIgnore
+    public Double getResolvedLat() {
+        return resolvedLat;
+    }
+
+    @JsonIgnore
+    public Double getResolvedLon() {
+        return resolvedLon;
+    }
+
+    @JsonIgnore
+    public LocalDateTime getResolvedAt() {
+        return resolvedAt;
+    }
+
+    /**
+     * Records that the address fields now describe the current latitude and longitude.
+     *
+     * @param resolvedAt when the address was gathered from the maps API
+     */
+    public void markAddressResolved(LocalDateTime resolvedAt) {
+        this.resolvedLat = this.lat;
+        this.resolvedLon = this.lon;
+        this.resolvedAt = resolvedAt;
+    }
+
+    /**
+     * @param threshold oldest acceptable resolution time
+     * @return whether the address fields describe the current latitude and
+     * longitude and were gathered after the given time
+     */
+    public boolean isAddressResolvedSince(LocalDateTime threshold) {
+        return this.address != null
+                && this.resolvedAt != null
+                && this.resolvedAt.isAfter(threshold)
+                && Objects.equals(this.lat, this.resolvedLat)
+                && Objects.equals(this.lon, this.resolvedLon);
+    }
 }
@@ -1,5 +1,6 @@
 package com.udacity.vehicles.domain.car;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.udacity.vehicles.domain.Condition;
 import com.udacity.vehicles.domain.Location;
 import java.time.LocalDateTime;
@@ -9,7 +10,11 @@ import javax.persistence.EntityListeners;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
 import javax.persistence.Transient;
 import javax.validation.Valid;
 import javax.validation.constraints.*;
@@ -22,11 +27,34 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
  * Declares the Car class, related variables and methods.
  */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_car_manufacturer_model", columnList = "manufacturer_code, model"),
+        @Index(name = "idx_car_model", columnList = "model"),
+        @Index(name = "idx_car_body", columnList = "body"),
+        @Index(name = "idx_car_fuel_type", columnList = "fuelType"),
+        @Index(name = "idx_car_model_year", columnList = "modelYear"),
+        @Index(name = "idx_car_production_year", columnList = "productionYear"),
+        @Index(name = "idx_car_mileage", columnList = "mileage")
+})
 @EntityListeners(AuditingEntityListener.class)
+@JsonFilter(Car.FIELDS_FILTER)
 public class Car {
 
+    /**
+     * Name of the Jackson filter selecting the properties of a car written
+     * to a response; every property is written unless a filter is registered.
+     */
+    public static final String FIELDS_FILTER = "carFields";
+
+    /**
+     * Number of IDs reserved by each call to the car sequence, so that
+     * inserts in bulk need one sequence call per this many cars.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_seq")
+    @SequenceGenerator(name = "car_seq", sequenceName = "car_seq", allocationSize = Car.ID_ALLOCATION_SIZE)
     private Long id;
 
     @CreatedDate
@@ -0,0 +1,129 @@
+package com.udacity.vehicles.domain.car;
+
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+
+import java.util.Objects;
+
+/**
+ * Copies the properties a client may change from one car to another: the
+ * condition, the details and the latitude and longitude. ID, audit dates,
+ * price and resolved address are left alone. Every copy reports whether it
+ * changed the target, so that unchanged cars need not be written.
+ */
+public final class CarMapper {
+
+    private CarMapper() {
+    }
+
+    /**
+     * Copies the non-null properties of a car, as sent in a full update
+     * where absent properties keep their stored value.
+     *
+     * @param source the car holding the new values
+     * @param target the car to update
+     * @return whether any property of the target changed
+     */
+    public static boolean copyNonNull(Car source, Car target) {
+        return copy(source, target, true);
+    }
+
+    /**
+     * Copies every property of a car, nulls included, as computed by a
+     * merge patch where a null value removes the property.
+     *
+     * @param source the car holding the new values
+     * @param target the car to update
+     * @return whether any property of the target changed
+     */
+    public static boolean copyAll(Car source, Car target) {
+        return copy(source, target, false);
+    }
+
+    private static boolean copy(Car source, Car target, boolean skipNulls) {
+        boolean changed = false;
+
+        if (differs(source.getCondition(), target.getCondition(), skipNulls)) {
+            target.setCondition(source.getCondition());
+            changed = true;
+        }
+        if (source.getDetails() != null) {
+            changed |= copyDetails(source.getDetails(), target.getDetails(), skipNulls);
+        }
+        if (source.getLocation() != null) {
+            changed |= copyLocation(source.getLocation(), target.getLocation(), skipNulls);
+        }
+
+        return changed;
+    }
+
+    private static boolean copyDetails(Details source, Details target, boolean skipNulls) {
+        boolean changed = false;
+
+        if (differs(source.getBody(), target.getBody(), skipNulls)) {
+            target.setBody(source.getBody());
+            changed = true;
+        }
+        if (differs(source.getModel(), target.getModel(), skipNulls)) {
+            target.setModel(source.getModel());
+            changed = true;
+        }
+        if (differs(source.getNumberOfDoors(), target.getNumberOfDoors(), skipNulls)) {
+            target.setNumberOfDoors(source.getNumberOfDoors());
+            changed = true;
+        }
+        if (differs(source.getFuelType(), target.getFuelType(), skipNulls)) {
+            target.setFuelType(source.getFuelType());
+            changed = true;
+        }
+        if (differs(source.getEngine(), target.getEngine(), skipNulls)) {
+            target.setEngine(source.getEngine());
+            changed = true;
+        }
+        if (differs(source.getMileage(), target.getMileage(), skipNulls)) {
+            target.setMileage(source.getMileage());
+            changed = true;
+        }
+        if (differs(source.getModelYear(), target.getModelYear(), skipNulls)) {
+            target.setModelYear(source.getModelYear());
+            changed = true;
+        }
+        if (differs(source.getProductionYear(), target.getProductionYear(), skipNulls)) {
+            target.setProductionYear(source.getProductionYear());
+            changed = true;
+        }
+        if (differs(source.getExternalColor(), target.getExternalColor(), skipNulls)) {
+            target.setExternalColor(source.getExternalColor());
+            changed = true;
+        }
+
+        // Manufacturers are told apart by code only.
+        Manufacturer manufacturer = source.getManufacturer();
+        if (manufacturer != null && (target.getManufacturer() == null
+                || !Objects.equals(manufacturer.getCode(), target.getManufacturer().getCode()))) {
+            target.setManufacturer(manufacturer);
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    private static boolean copyLocation(Location source, Location target, boolean skipNulls) {
+        boolean changed = false;
+
+        if (differs(source.getLat(), target.getLat(), skipNulls)) {
+            target.setLat(source.getLat());
+            changed = true;
+        }
+        if (differs(source.getLon(), target.getLon(), skipNulls)) {
+            target.setLon(source.getLon());
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    private static boolean differs(Object value, Object current, boolean skipNulls) {
+        return !(value == null && skipNulls) && !Objects.equals(value, current);
+    }
+}
@@ -1,9 +1,76 @@
 package com.udacity.vehicles.domain.car;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface CarRepository extends JpaRepository<Car, Long> {
+public interface CarRepository extends JpaRepository<Car, Long>, CarSearchRepository {
+
+    /**
+     * Keyset pagination over the primary key: only rows after the given ID are read,
+     * so the cost of a page does not depend on how deep into the table it is.
+     */
+    Slice<Car> findByIdGreaterThan(Long id, Pageable pageable);
+
+    String SUMMARY = "select c.id as id, c.condition as condition, c.details.body as body, "
+            + "c.details.model as model, m.name as manufacturer, c.details.modelYear as modelYear, "
+            + "c.details.mileage as mileage, c.details.externalColor as externalColor "
+            + "from Car c join c.details.manufacturer m ";
+
+    /**
+     * Keyset pagination as {@link #findByIdGreaterThan(Long, Pageable)} does,
+     * selecting only the columns of {@link CarSummary}.
+     */
+    @Query(SUMMARY + "where c.id > :id order by c.id")
+    Slice<CarSummary> findSummariesByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
+    @Query(SUMMARY + "where c.id = :id")
+    Optional<CarSummary> findSummaryById(@Param("id") Long id);
+
+    boolean existsByDetailsManufacturerCode(Integer code);
+
+    /**
+     * Streams every car in ID order through a database cursor, fetching
+     * rows in chunks instead of loading the whole table.
+     * Must be consumed within a transaction and closed afterwards.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "500"))
+    @Query("select c from Car c order by c.id")
+    Stream<Car> streamAll();
 
+    /**
+     * Stores the address resolved for a car without touching its other columns,
+     * so neither the car's modification date nor a concurrent update of its
+     * location are overwritten: nothing is stored if the car moved meanwhile.
+     *
+     * @return the number of updated cars
+     */
+    @Transactional
+    @Modifying
+    @Query("update Car c set c.location.address = :address, c.location.city = :city, "
+            + "c.location.state = :state, c.location.zip = :zip, c.location.resolvedLat = :lat, "
+            + "c.location.resolvedLon = :lon, c.location.resolvedAt = :resolvedAt "
+            + "where c.id = :id and c.location.lat = :lat and c.location.lon = :lon")
+    int updateResolvedAddress(
+            @Param("id") Long id,
+            @Param("lat") Double lat,
+            @Param("lon") Double lon,
+            @Param("address") String address,
+            @Param("city") String city,
+            @Param("state") String state,
+            @Param("zip") String zip,
+            @Param("resolvedAt") LocalDateTime resolvedAt
+    );
 }
@@ -0,0 +1,120 @@
+package com.udacity.vehicles.domain.car;
+
+import com.udacity.vehicles.domain.Condition;
+
+/**
+ * Filters a search for cars. Every filter left empty matches all cars;
+ * ranges are inclusive and may be open on either side.
+ */
+public class CarSearchCriteria {
+
+    private Integer manufacturerCode;
+
+    private String model;
+
+    private String body;
+
+    private String fuelType;
+
+    private Condition condition;
+
+    private Integer minModelYear;
+
+    private Integer maxModelYear;
+
+    private Integer minProductionYear;
+
+    private Integer maxProductionYear;
+
+    private Integer minMileage;
+
+    private Integer maxMileage;
+
+    public Integer getManufacturerCode() {
+        return manufacturerCode;
+    }
+
+    public void setManufacturerCode(Integer manufacturerCode) {
+        this.manufacturerCode = manufacturerCode;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public String getFuelType() {
+        return fuelType;
+    }
+
+    public void setFuelType(String fuelType) {
+        this.fuelType = fuelType;
+    }
+
+    public Condition getCondition() {
+        return condition;
+    }
+
+    public void setCondition(Condition condition) {
+        this.condition = condition;
+    }
+
+    public Integer getMinModelYear() {
+        return minModelYear;
+    }
+
+    public void setMinModelYear(Integer minModelYear) {
+        this.minModelYear = minModelYear;
+    }
+
+    public Integer getMaxModelYear() {
+        return maxModelYear;
+    }
+
+    public void setMaxModelYear(Integer maxModelYear) {
+        this.maxModelYear = maxModelYear;
+    }
+
+    public Integer getMinProductionYear() {
+        return minProductionYear;
+    }
+
+    public void setMinProductionYear(Integer minProductionYear) {
+        this.minProductionYear = minProductionYear;
+    }
+
+    public Integer getMaxProductionYear() {
+        return maxProductionYear;
+    }
+
+    public void setMaxProductionYear(Integer maxProductionYear) {
+        this.maxProductionYear = maxProductionYear;
+    }
+
+    public Integer getMinMileage() {
+        return minMileage;
+    }
+
+    public void setMinMileage(Integer minMileage) {
+        this.minMileage = minMileage;
+    }
+
+    public Integer getMaxMileage() {
+        return maxMileage;
+    }
+
+    public void setMaxMileage(Integer maxMileage) {
+        this.maxMileage = maxMileage;
+    }
+}
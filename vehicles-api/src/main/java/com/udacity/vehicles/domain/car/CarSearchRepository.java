@@ -0,0 +1,20 @@
+package com.udacity.vehicles.domain.car;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Searches cars one page at a time, without counting the matching cars.
+ */
+public interface CarSearchRepository {
+
+    /**
+     * Keyset pagination over the cars matching a specification, ordered by ID.
+     *
+     * @param specification the cars to find
+     * @param after         ID of the last car of the previous page, or null for the first page
+     * @param limit         maximum number of cars to return
+     * @return a slice of the matching cars, telling whether more cars match
+     */
+    Slice<Car> search(Specification<Car> specification, Long after, int limit);
+}
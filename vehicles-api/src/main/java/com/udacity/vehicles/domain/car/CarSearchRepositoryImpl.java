@@ -0,0 +1,48 @@
+package com.udacity.vehicles.domain.car;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+/**
+ * Implements {@link CarSearchRepository}. Reading one car more than the page
+ * size tells whether there is a next page, so no count query is needed.
+ */
+class CarSearchRepositoryImpl implements CarSearchRepository {
+
+    private final EntityManager entityManager;
+
+    CarSearchRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Slice<Car> search(Specification<Car> specification, Long after, int limit) {
+        CriteriaBuilder builder = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<Car> query = builder.createQuery(Car.class);
+        Root<Car> car = query.from(Car.class);
+
+        query.select(car)
+                .where(
+                        specification.toPredicate(car, query, builder),
+                        builder.greaterThan(car.<Long>get("id"), after == null ? 0L : after)
+                )
+                .orderBy(builder.asc(car.get("id")));
+
+        List<Car> cars = this.entityManager
+                .createQuery(query)
+                .setMaxResults(limit + 1)
+                .getResultList();
+
+        boolean hasNext = cars.size() > limit;
+
+        return new SliceImpl<>(hasNext ? cars.subList(0, limit) : cars, PageRequest.of(0, limit), hasNext);
+    }
+}
@@ -0,0 +1,51 @@
+package com.udacity.vehicles.domain.car;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Moves the car sequence past the IDs already stored. Databases created
+ * before car IDs came from {@code car_seq} hold IDs assigned by an identity
+ * column, while the sequence the schema update then creates starts at 1.
+ * Runs once the schema is updated, before any car can be inserted.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class CarSequenceMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(CarSequenceMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CarSequenceMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Restarts the sequence so that the next block of IDs it hands out
+     * starts after the highest stored ID. A sequence already past that ID
+     * is left alone.
+     */
+    @PostConstruct
+    public void migrate() {
+        Long maxId = this.jdbcTemplate.queryForObject("select max(id) from car", Long.class);
+        Long current = this.jdbcTemplate.queryForObject(
+                "select current_value from information_schema.sequences where sequence_name = 'CAR_SEQ'",
+                Long.class);
+
+        if (maxId == null || current == null || current >= maxId) {
+            return;
+        }
+
+        // the pooled optimizer hands out the block of IDs ending at the value read
+        long restart = maxId + Car.ID_ALLOCATION_SIZE;
+        this.jdbcTemplate.execute("alter sequence car_seq restart with " + restart);
+
+        log.info("Moved car_seq from {} to {}, past the highest car ID {}", current, restart, maxId);
+    }
+}
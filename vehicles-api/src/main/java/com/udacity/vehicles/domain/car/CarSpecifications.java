@@ -0,0 +1,65 @@
+package com.udacity.vehicles.domain.car;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the specifications used to search for cars. Every filter compares
+ * a column of the car as is, so the search can use the indexes of the car table.
+ */
+public final class CarSpecifications {
+
+    private CarSpecifications() {
+    }
+
+    /**
+     * @param criteria the filters of the search
+     * @return a specification matching the cars passing every given filter
+     */
+    public static Specification<Car> matching(CarSearchCriteria criteria) {
+        return (root, query, builder) -> {
+            Path<Details> details = root.get("details");
+            List<Predicate> predicates = new ArrayList<>();
+
+            equal(predicates, builder, details.get("manufacturer").get("code"), criteria.getManufacturerCode());
+            equal(predicates, builder, details.get("model"), criteria.getModel());
+            equal(predicates, builder, details.get("body"), criteria.getBody());
+            equal(predicates, builder, details.get("fuelType"), criteria.getFuelType());
+            equal(predicates, builder, root.get("condition"), criteria.getCondition());
+            between(predicates, builder, details.get("modelYear"),
+                    criteria.getMinModelYear(), criteria.getMaxModelYear());
+            between(predicates, builder, details.get("productionYear"),
+                    criteria.getMinProductionYear(), criteria.getMaxProductionYear());
+            between(predicates, builder, details.get("mileage"),
+                    criteria.getMinMileage(), criteria.getMaxMileage());
+
+            return builder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private static void equal(List<Predicate> predicates, CriteriaBuilder builder, Path<?> path, Object value) {
+        if (value != null && !"".equals(value)) {
+            predicates.add(builder.equal(path, value));
+        }
+    }
+
+    private static void between(
+            List<Predicate> predicates,
+            CriteriaBuilder builder,
+            Path<Integer> path,
+            Integer min,
+            Integer max
+    ) {
+        if (min != null) {
+            predicates.add(builder.greaterThanOrEqualTo(path, min));
+        }
+        if (max != null) {
+            predicates.add(builder.lessThanOrEqualTo(path, max));
+        }
+    }
+}
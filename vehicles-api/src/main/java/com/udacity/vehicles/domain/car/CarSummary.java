@@ -0,0 +1,26 @@
+package com.udacity.vehicles.domain.car;
+
+import com.udacity.vehicles.domain.Condition;
+
+/**
+ * Projection of the columns of a car needed to list it in a grid,
+ * read without loading the car itself or its manufacturer.
+ */
+public interface CarSummary {
+
+    Long getId();
+
+    Condition getCondition();
+
+    String getBody();
+
+    String getModel();
+
+    String getManufacturer();
+
+    Integer getModelYear();
+
+    Integer getMileage();
+
+    String getExternalColor();
+}
@@ -0,0 +1,83 @@
+package com.udacity.vehicles.domain.car;
+
+import com.udacity.tracing.ReactiveTracer;
+import com.udacity.vehicles.domain.Location;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exposes the car queries needed by the reactive read path. JDBC has no
+ * non-blocking driver for this database, so the queries of the {@link CarRepository}
+ * run on a dedicated pool sized like the connection pool: callers never block,
+ * and no more threads wait on the database than there are connections to serve them.
+ * Queries run within the span of their subscriber.
+ */
+@Repository
+public class ReactiveCarRepository {
+
+    private final CarRepository carRepository;
+    private final ReactiveTracer tracer;
+    private final Scheduler scheduler;
+
+    public ReactiveCarRepository(
+            CarRepository carRepository,
+            ReactiveTracer tracer,
+            @Value("${vehicles.reactive.repository-threads:10}") int threads
+    ) {
+        this.carRepository = carRepository;
+        this.tracer = tracer;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "car-repository-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler = Schedulers.fromExecutorService(executor);
+    }
+
+    public Mono<Car> findById(Long id) {
+        return this.tracer.fromCallable(() -> this.carRepository.findById(id).orElse(null), this.scheduler);
+    }
+
+    /**
+     * @see CarRepository#findByIdGreaterThan
+     */
+    public Mono<Slice<Car>> findByIdGreaterThan(Long id, int limit) {
+        return this.tracer.fromCallable(
+                () -> this.carRepository.findByIdGreaterThan(id, PageRequest.of(0, limit, Sort.by("id"))),
+                this.scheduler);
+    }
+
+    /**
+     * @see CarRepository#updateResolvedAddress
+     */
+    public Mono<Integer> updateResolvedAddress(Long id, Location location) {
+        return this.tracer.fromCallable(() -> this.carRepository.updateResolvedAddress(
+                id,
+                location.getResolvedLat(),
+                location.getResolvedLon(),
+                location.getAddress(),
+                location.getCity(),
+                location.getState(),
+                location.getZip(),
+                location.getResolvedAt()
+        ), this.scheduler);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        this.scheduler.dispose();
+    }
+}
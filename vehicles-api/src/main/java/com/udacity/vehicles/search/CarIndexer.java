@@ -0,0 +1,76 @@
+package com.udacity.vehicles.search;
+
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Fills the text and location indexes with the cars stored when the application
+ * starts. From then on, the car service keeps the indexes up to date.
+ */
+@Component
+public class CarIndexer {
+
+    private static final Logger log = LoggerFactory.getLogger(CarIndexer.class);
+
+    private final CarRepository carRepository;
+    private final CarTextIndex carTextIndex;
+    private final CarLocationIndex carLocationIndex;
+    private final EntityManager entityManager;
+    private final int batchSize;
+
+    public CarIndexer(
+            CarRepository carRepository,
+            CarTextIndex carTextIndex,
+            CarLocationIndex carLocationIndex,
+            EntityManager entityManager,
+            @Value("${vehicles.search.rebuild-batch-size:1000}") int batchSize
+    ) {
+        this.carRepository = carRepository;
+        this.carTextIndex = carTextIndex;
+        this.carLocationIndex = carLocationIndex;
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Indexes every stored car, reading them through a database cursor. Cars
+     * are detached every {@code vehicles.search.rebuild-batch-size} cars, so
+     * memory use does not depend on the size of the inventory.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        long start = System.nanoTime();
+
+        this.carTextIndex.clear();
+        this.carLocationIndex.clear();
+        try (Stream<Car> cars = this.carRepository.streamAll()) {
+            Iterator<Car> iterator = cars.iterator();
+            int read = 0;
+
+            while (iterator.hasNext()) {
+                Car car = iterator.next();
+                this.carTextIndex.index(car);
+                this.carLocationIndex.index(car);
+
+                if (++read % this.batchSize == 0) {
+                    this.entityManager.clear();
+                }
+            }
+        }
+
+        log.info("Indexed {} cars for text and location search in {} ms",
+                this.carTextIndex.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,281 @@
+package com.udacity.vehicles.search;
+
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Spatial index over the location of each car: a grid of cells of a fixed
+ * number of degrees, each holding the cars located in it. Queries only visit
+ * the cells around the requested point, so their cost depends on how many
+ * cars are nearby rather than on the size of the fleet.
+ */
+@Component
+public class CarLocationIndex {
+
+    static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+    private static final int MAX_RINGS = 64;
+
+    private final double cellDegrees;
+    private final int lonCells;
+    private final Map<Long, Map<Long, double[]>> cells = new HashMap<>();
+    private final Map<Long, Long> cellByCar = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param cellDegrees side of a grid cell, in degrees of latitude and longitude
+     */
+    public CarLocationIndex(@Value("${vehicles.near.cell-degrees:0.1}") double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+        this.lonCells = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    /**
+     * Adds a car to the index, moving it if it was indexed elsewhere before.
+     *
+     * @param car the car to index; ignored when it has no ID or coordinates
+     */
+    public void index(Car car) {
+        Location location = car.getLocation();
+
+        if (car.getId() == null || location == null || location.getLat() == null || location.getLon() == null) {
+            return;
+        }
+
+        double[] point = {location.getLat(), location.getLon()};
+        long cell = this.cellOf(point[0], point[1]);
+
+        this.lock.writeLock().lock();
+        try {
+            this.removeLocked(car.getId());
+
+            this.cells.computeIfAbsent(cell, c -> new HashMap<>()).put(car.getId(), point);
+            this.cellByCar.put(car.getId(), cell);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a car from the index.
+     *
+     * @param carId the ID of the car to remove
+     */
+    public void remove(Long carId) {
+        this.lock.writeLock().lock();
+        try {
+            this.removeLocked(carId);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every car from the index.
+     */
+    public void clear() {
+        this.lock.writeLock().lock();
+        try {
+            this.cells.clear();
+            this.cellByCar.clear();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the cars within a radius of a point.
+     *
+     * @param lat      latitude of the point
+     * @param lon      longitude of the point
+     * @param radiusKm distance from the point, in kilometers
+     * @param limit    maximum number of car IDs to return
+     * @return the IDs of the cars within the radius, nearest first
+     */
+    public List<Long> withinRadius(double lat, double lon, double radiusKm, int limit) {
+        int latRings = (int) Math.ceil(radiusKm / (KM_PER_DEGREE * this.cellDegrees));
+        double widestLat = Math.min(90, Math.abs(lat) + radiusKm / KM_PER_DEGREE);
+        double lonKm = KM_PER_DEGREE * this.cellDegrees * Math.cos(Math.toRadians(widestLat));
+        // Near the poles the radius may span every longitude: every column is then visited once.
+        boolean everyLon = lonKm <= 0 || 2 * Math.ceil(radiusKm / lonKm) + 1 >= this.lonCells;
+        int lonRings = everyLon ? 0 : (int) Math.ceil(radiusKm / lonKm);
+
+        List<Neighbor> found = new ArrayList<>();
+
+        this.lock.readLock().lock();
+        try {
+            int latIndex = this.latIndexOf(lat);
+            int lonIndex = this.lonIndexOf(lon);
+            int firstLon = everyLon ? 0 : lonIndex - lonRings;
+            int lastLon = everyLon ? this.lonCells - 1 : lonIndex + lonRings;
+
+            for (int dLat = -latRings; dLat <= latRings; dLat++) {
+                for (int lonColumn = firstLon; lonColumn <= lastLon; lonColumn++) {
+                    this.collect(latIndex + dLat, lonColumn, lat, lon, radiusKm, found);
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        return nearest(found, limit);
+    }
+
+    /**
+     * Finds the cars nearest to a point, however far they are.
+     *
+     * @param lat   latitude of the point
+     * @param lon   longitude of the point
+     * @param limit number of car IDs to return
+     * @return the IDs of the nearest cars, nearest first
+     */
+    public List<Long> nearest(double lat, double lon, int limit) {
+        List<Neighbor> found = new ArrayList<>();
+
+        this.lock.readLock().lock();
+        try {
+            int latIndex = this.latIndexOf(lat);
+            int lonIndex = this.lonIndexOf(lon);
+
+            for (int ring = 0; ring <= MAX_RINGS; ring++) {
+                for (int dLat = -ring; dLat <= ring; dLat++) {
+                    for (int dLon = -ring; dLon <= ring; dLon++) {
+                        if (Math.abs(dLat) == ring || Math.abs(dLon) == ring) {
+                            this.collect(latIndex + dLat, lonIndex + dLon, lat, lon, Double.MAX_VALUE, found);
+                        }
+                    }
+                }
+
+                // Every car left in the cells beyond this ring is farther away than this bound.
+                if (found.size() >= limit && kthDistance(found, limit) <= this.ringBoundKm(lat, ring)) {
+                    return nearest(found, limit);
+                }
+            }
+
+            found.clear();
+            this.cells.values().forEach(cars -> cars.forEach((carId, point) ->
+                    found.add(new Neighbor(carId, distanceKm(lat, lon, point[0], point[1])))));
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        return nearest(found, limit);
+    }
+
+    /**
+     * @return the number of cars indexed
+     */
+    public int size() {
+        this.lock.readLock().lock();
+        try {
+            return this.cellByCar.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Great-circle distance between two points, using the haversine formula.
+     */
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.pow(Math.sin(dLat / 2), 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.pow(Math.sin(dLon / 2), 2);
+
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private void collect(int latIndex, int lonIndex, double lat, double lon, double radiusKm, List<Neighbor> found) {
+        Map<Long, double[]> cars = this.cells.get(this.key(latIndex, lonIndex));
+
+        if (cars == null) {
+            return;
+        }
+
+        cars.forEach((carId, point) -> {
+            double distance = distanceKm(lat, lon, point[0], point[1]);
+            if (distance <= radiusKm) {
+                found.add(new Neighbor(carId, distance));
+            }
+        });
+    }
+
+    /**
+     * @return a lower bound of the distance between the point and any cell outside the given ring
+     */
+    private double ringBoundKm(double lat, int ring) {
+        double farthestLat = Math.min(90, Math.abs(lat) + (ring + 1) * this.cellDegrees);
+
+        return ring * this.cellDegrees * KM_PER_DEGREE * Math.cos(Math.toRadians(farthestLat));
+    }
+
+    private void removeLocked(Long carId) {
+        Long cell = this.cellByCar.remove(carId);
+
+        if (cell == null) {
+            return;
+        }
+
+        Map<Long, double[]> cars = this.cells.get(cell);
+        cars.remove(carId);
+        if (cars.isEmpty()) {
+            this.cells.remove(cell);
+        }
+    }
+
+    private long cellOf(double lat, double lon) {
+        return this.key(this.latIndexOf(lat), this.lonIndexOf(lon));
+    }
+
+    private int latIndexOf(double lat) {
+        return (int) Math.floor((lat + 90) / this.cellDegrees);
+    }
+
+    private int lonIndexOf(double lon) {
+        return (int) Math.floor((lon + 180) / this.cellDegrees);
+    }
+
+    /**
+     * Wraps longitudes around the antimeridian; latitudes beyond a pole
+     * fall into cells no car is indexed in.
+     */
+    private long key(int latIndex, int lonIndex) {
+        return ((long) latIndex << 32) | Math.floorMod(lonIndex, this.lonCells);
+    }
+
+    private static double kthDistance(List<Neighbor> found, int k) {
+        return found.stream()
+                .mapToDouble(neighbor -> neighbor.distanceKm)
+                .sorted()
+                .skip(k - 1)
+                .findFirst()
+                .orElse(Double.MAX_VALUE);
+    }
+
+    private static List<Long> nearest(List<Neighbor> found, int limit) {
+        return found.stream()
+                .sorted(Comparator.comparingDouble((Neighbor neighbor) -> neighbor.distanceKm)
+                        .thenComparing(neighbor -> neighbor.carId))
+                .limit(limit)
+                .map(neighbor -> neighbor.carId)
+                .collect(Collectors.toList());
+    }
+
+    private static final class Neighbor {
+        private final Long carId;
+        private final double distanceKm;
+
+        private Neighbor(Long carId, double distanceKm) {
+            this.carId = carId;
+            this.distanceKm = distanceKm;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.udacity.vehicles.search;
+
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.Details;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Inverted index over the text describing each car: model, body, engine,
+ * fuel type, external color and manufacturer name. Every word of a query
+ * must match a word of a car, either exactly, as a prefix or, for longer
+ * words, within one or two typos after the first letter. Typos are only
+ * looked for among the terms sharing the first letter of the word and a
+ * length within the typos allowed. Cars are ranked by how rare and how
+ * exact their matches are, and by the field they matched in.
+ */
+@Component
+public class CarTextIndex {
+
+    private static final float EXACT = 1.0f;
+    private static final float PREFIX = 0.8f;
+    private static final float FUZZY = 0.6f;
+
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Integer, NavigableSet<String>> termsByLength = new HashMap<>();
+    private final Map<Long, Set<String>> termsByCar = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds a car to the index, replacing what was indexed for it before.
+     *
+     * @param car the car to index; ignored when it has no ID yet
+     */
+    public void index(Car car) {
+        if (car.getId() == null) {
+            return;
+        }
+
+        Map<String, Float> weights = weigh(car.getDetails());
+
+        this.lock.writeLock().lock();
+        try {
+            this.removeLocked(car.getId());
+
+            weights.forEach((term, weight) -> {
+                Map<Long, Float> cars = this.postings.get(term);
+                if (cars == null) {
+                    cars = new HashMap<>();
+                    this.postings.put(term, cars);
+                    this.termsByLength.computeIfAbsent(term.length(), length -> new TreeSet<>()).add(term);
+                }
+                cars.put(car.getId(), weight);
+            });
+            this.termsByCar.put(car.getId(), weights.keySet());
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a car from the index.
+     *
+     * @param carId the ID of the car to remove
+     */
+    public void remove(Long carId) {
+        this.lock.writeLock().lock();
+        try {
+            this.removeLocked(carId);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every car from the index.
+     */
+    public void clear() {
+        this.lock.writeLock().lock();
+        try {
+            this.postings.clear();
+            this.termsByLength.clear();
+            this.termsByCar.clear();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the cars matching every word of a query.
+     *
+     * @param query free text, such as "bmw x5 diesel black"
+     * @param limit maximum number of car IDs to return
+     * @return the IDs of the matching cars, best match first
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> words = tokenize(query);
+
+        if (words.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        this.lock.readLock().lock();
+        try {
+            Map<Long, Float> scores = null;
+
+            for (String word : words) {
+                Map<Long, Float> wordScores = this.scoreWord(word);
+
+                if (scores == null) {
+                    scores = wordScores;
+                } else {
+                    Map<Long, Float> previous = scores;
+                    scores = new HashMap<>();
+                    for (Map.Entry<Long, Float> entry : wordScores.entrySet()) {
+                        Float score = previous.get(entry.getKey());
+                        if (score != null) {
+                            scores.put(entry.getKey(), score + entry.getValue());
+                        }
+                    }
+                }
+
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+
+            return scores.entrySet()
+                    .stream()
+                    .sorted(Map.Entry.<Long, Float>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of cars indexed
+     */
+    public int size() {
+        this.lock.readLock().lock();
+        try {
+            return this.termsByCar.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scores the cars having a term matching the given query word; a car
+     * matching several terms keeps its best score.
+     */
+    private Map<Long, Float> scoreWord(String word) {
+        Map<Long, Float> scores = new HashMap<>();
+        int maxEdits = word.length() >= 8 ? 2 : word.length() >= 4 ? 1 : 0;
+
+        for (Map.Entry<String, Map<Long, Float>> term : this.postings
+                .subMap(word, true, word + Character.MAX_VALUE, true)
+                .entrySet()) {
+            this.addScores(scores, term.getValue(), term.getKey().equals(word) ? EXACT : PREFIX);
+        }
+
+        if (maxEdits > 0) {
+            String initial = word.substring(0, 1);
+
+            for (int length = word.length() - maxEdits; length <= word.length() + maxEdits; length++) {
+                NavigableSet<String> terms = this.termsByLength.get(length);
+                if (terms == null) {
+                    continue;
+                }
+
+                for (String candidate : terms.subSet(initial, true, initial + Character.MAX_VALUE, true)) {
+                    if (!candidate.startsWith(word) && withinEdits(word, candidate, maxEdits)) {
+                        this.addScores(scores, this.postings.get(candidate), FUZZY);
+                    }
+                }
+            }
+        }
+
+        return scores;
+    }
+
+    private void addScores(Map<Long, Float> scores, Map<Long, Float> carWeights, float match) {
+        float idf = (float) Math.log(1 + (double) this.termsByCar.size() / carWeights.size());
+
+        carWeights.forEach((carId, weight) -> scores.merge(carId, idf * weight * match, Math::max));
+    }
+
+    private void removeLocked(Long carId) {
+        Set<String> terms = this.termsByCar.remove(carId);
+
+        if (terms == null) {
+            return;
+        }
+
+        for (String term : terms) {
+            Map<Long, Float> cars = this.postings.get(term);
+            cars.remove(carId);
+            if (cars.isEmpty()) {
+                this.postings.remove(term);
+
+                NavigableSet<String> sameLength = this.termsByLength.get(term.length());
+                sameLength.remove(term);
+                if (sameLength.isEmpty()) {
+                    this.termsByLength.remove(term.length());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the weight of every term of a car, the weight of the
+     * most telling field it appears in
+     */
+    private static Map<String, Float> weigh(Details details) {
+        Map<String, Float> weights = new HashMap<>();
+
+        addTerms(weights, details.getModel(), 3f);
+        addTerms(weights, details.getManufacturer() == null ? null : details.getManufacturer().getName(), 3f);
+        addTerms(weights, details.getBody(), 2f);
+        addTerms(weights, details.getFuelType(), 2f);
+        addTerms(weights, details.getExternalColor(), 2f);
+        addTerms(weights, details.getEngine(), 1f);
+
+        return weights;
+    }
+
+    private static void addTerms(Map<String, Float> weights, String text, float weight) {
+        tokenize(text).forEach(term -> weights.merge(term, weight, Math::max));
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}.]+"))
+                .map(token -> token.replaceAll("^\\.+|\\.+$", ""))
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Bounded Levenshtein distance: gives up on a row as soon as every
+     * value in it exceeds the maximum.
+     */
+    static boolean withinEdits(String a, String b, int maxEdits) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+
+            if (rowMin > maxEdits) {
+                return false;
+            }
+
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        return previous[b.length()] <= maxEdits;
+    }
+}
@@ -0,0 +1,70 @@
+package com.udacity.vehicles.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Outcome of a bulk ingestion: how many cars were created and rejected,
+ * and the result of every item in the order it was received.
+ */
+public class BulkResult {
+
+    private int created;
+    private int rejected;
+    private final List<Item> items = new ArrayList<>();
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public List<Item> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    void created(int index, Long id) {
+        this.created++;
+        this.items.add(new Item(index, id, null));
+    }
+
+    void rejected(int index, String error) {
+        this.rejected++;
+        this.items.add(new Item(index, null, error));
+    }
+
+    void sortItems() {
+        this.items.sort(Comparator.comparingInt(Item::getIndex));
+    }
+
+    /**
+     * Result of one item: the ID of the created car, or why it was rejected.
+     */
+    public static class Item {
+        private final int index;
+        private final Long id;
+        private final String error;
+
+        Item(int index, Long id, String error) {
+            this.index = index;
+            this.id = id;
+            this.error = error;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.udacity.vehicles.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import com.udacity.vehicles.search.CarLocationIndex;
+import com.udacity.vehicles.search.CarTextIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Implements the ingestion of many vehicles at once. Manufacturers are
+ * checked against the in-memory registry, cars are inserted in JDBC batches of
+ * {@code vehicles.bulk.batch-size}, one transaction per batch, and neither
+ * the pricing nor the maps service is called: price and address are
+ * gathered when the cars are read.
+ */
+@Service
+public class CarBulkService {
+
+    private static final Logger log = LoggerFactory.getLogger(CarBulkService.class);
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ManufacturerService manufacturerService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final CarTextIndex carTextIndex;
+    private final CarLocationIndex carLocationIndex;
+    private final int batchSize;
+
+    public CarBulkService(
+            ObjectMapper objectMapper,
+            Validator validator,
+            ManufacturerService manufacturerService,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            CarTextIndex carTextIndex,
+            CarLocationIndex carLocationIndex,
+            @Value("${vehicles.bulk.batch-size:1000}") int batchSize
+    ) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.manufacturerService = manufacturerService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.carTextIndex = carTextIndex;
+        this.carLocationIndex = carLocationIndex;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Creates every valid car read from a JSON array or a stream of JSON
+     * objects. Cars are read one at a time, so memory use does not depend
+     * on the size of the input.
+     *
+     * @param json the cars to create, without ID
+     * @return the ID of every created car and the reason every other car was rejected
+     * @throws IOException if the input could not be read
+     */
+    public BulkResult ingest(InputStream json) throws IOException {
+        BulkResult result = new BulkResult();
+        List<Car> batch = new ArrayList<>(this.batchSize);
+        List<Integer> batchIndexes = new ArrayList<>(this.batchSize);
+        int index = 0;
+
+        try (MappingIterator<Car> cars = this.objectMapper.readerFor(Car.class).readValues(json)) {
+            while (true) {
+                Car car;
+                try {
+                    if (!cars.hasNextValue()) {
+                        break;
+                    }
+                    car = cars.nextValue();
+                } catch (JsonParseException e) {
+                    result.rejected(index, e.getOriginalMessage());
+                    break;
+                } catch (JsonMappingException e) {
+                    result.rejected(index++, e.getOriginalMessage());
+                    continue;
+                }
+
+                String error = this.validate(car);
+                if (error != null) {
+                    result.rejected(index++, error);
+                    continue;
+                }
+
+                batch.add(car);
+                batchIndexes.add(index++);
+
+                if (batch.size() == this.batchSize) {
+                    this.insert(batch, batchIndexes, result);
+                }
+            }
+        }
+
+        this.insert(batch, batchIndexes, result);
+        result.sortItems();
+
+        return result;
+    }
+
+    /**
+     * Checks a car and, if it can be created, replaces its manufacturer
+     * with the registered one.
+     *
+     * @return why the car cannot be created, or null if it can
+     */
+    private String validate(Car car) {
+        if (car == null) {
+            return "car expected";
+        }
+
+        Set<ConstraintViolation<Car>> violations = this.validator.validate(car);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+
+        Manufacturer manufacturer = car.getDetails().getManufacturer();
+        Manufacturer known = this.manufacturerService.findByCode(manufacturer.getCode()).orElse(null);
+        if (known == null || manufacturer.getName() != null && !manufacturer.getName().equals(known.getName())) {
+            return ManufacturerNotExistsException.NOT_EXISTS_MESSAGE;
+        }
+        car.getDetails().setManufacturer(known);
+
+        return null;
+    }
+
+    /**
+     * Inserts a batch in its own transaction, then empties it. If the batch
+     * cannot be stored, its cars are inserted again one at a time, so that
+     * only the cars the database refuses are rejected.
+     */
+    private void insert(List<Car> batch, List<Integer> batchIndexes, BulkResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Manufacturer> batchManufacturers = batch.stream()
+                .map(car -> car.getDetails().getManufacturer())
+                .collect(Collectors.toList());
+
+        try {
+            this.store(batch, batchManufacturers);
+            this.created(batch, batchIndexes, result);
+        } catch (RuntimeException e) {
+            log.warn("Could not insert a batch of {} cars, inserting them one at a time", batch.size(), e);
+
+            for (int i = 0; i < batch.size(); i++) {
+                Car car = batch.get(i);
+                car.getDetails().setManufacturer(batchManufacturers.get(i));
+
+                try {
+                    this.store(Collections.singletonList(car), Collections.singletonList(batchManufacturers.get(i)));
+                    this.created(Collections.singletonList(car), Collections.singletonList(batchIndexes.get(i)), result);
+                } catch (RuntimeException carException) {
+                    log.warn("Could not insert the car at index {}", batchIndexes.get(i), carException);
+                    result.rejected(batchIndexes.get(i), "could not be stored");
+                }
+            }
+        }
+
+        batch.clear();
+        batchIndexes.clear();
+    }
+
+    /**
+     * Persists cars in one transaction. Manufacturers are referenced by
+     * code, without being read again.
+     */
+    private void store(List<Car> cars, List<Manufacturer> manufacturers) {
+        this.transactionTemplate.execute(status -> {
+            for (int i = 0; i < cars.size(); i++) {
+                Car car = cars.get(i);
+
+                car.setId(null);
+                car.getDetails().setManufacturer(
+                        this.entityManager.getReference(Manufacturer.class, manufacturers.get(i).getCode()));
+                this.entityManager.persist(car);
+            }
+
+            this.entityManager.flush();
+            this.entityManager.clear();
+
+            return null;
+        });
+
+        for (int i = 0; i < cars.size(); i++) {
+            cars.get(i).getDetails().setManufacturer(manufacturers.get(i));
+        }
+    }
+
+    /**
+     * Indexes stored cars and records them as created.
+     */
+    private void created(List<Car> cars, List<Integer> indexes, BulkResult result) {
+        for (int i = 0; i < cars.size(); i++) {
+            Car car = cars.get(i);
+
+            this.carTextIndex.index(car);
+            this.carLocationIndex.index(car);
+            result.created(indexes.get(i), car.getId());
+        }
+    }
+}
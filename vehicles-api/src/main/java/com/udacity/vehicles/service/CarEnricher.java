@@ -0,0 +1,441 @@
+package com.udacity.vehicles.service;
+
+import com.udacity.tracing.ReactiveTracer;
+import com.udacity.tracing.Span;
+import com.udacity.vehicles.client.maps.MapsClient;
+import com.udacity.vehicles.client.prices.PriceClient;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.ReactiveCarRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Gathers the price and location data of vehicles from the
+ * pricing and maps services. When addresses are persisted,
+ * a stored address is reused as long as the car did not move
+ * and the address is not older than the configured maximum age.
+ * The time taken to enrich is recorded per kind of enrichment: a single
+ * car read, a page of cars, a car about to be saved or in the background,
+ * and traced within a span of the same kind.
+ */
+@Component
+public class CarEnricher {
+
+    private static final Logger log = LoggerFactory.getLogger(CarEnricher.class);
+
+    /**
+     * How the remote calls needed to enrich several cars are issued.
+     */
+    public enum Mode {
+        /**
+         * One remote call after the other, as the cars are visited.
+         */
+        SEQUENTIAL,
+        /**
+         * Price and location of every car are requested at once, bounded
+         * by the configured concurrency.
+         */
+        CONCURRENT
+    }
+
+    private final PriceClient priceClient;
+    private final MapsClient mapsClient;
+    private final ReactiveCarRepository carRepository;
+    private final Mode mode;
+    private final int concurrency;
+    private final int batchSize;
+    private final boolean persistAddresses;
+    private final Duration addressMaxAge;
+    private final Semaphore backgroundPermits;
+    private final MeterRegistry registry;
+    private final ReactiveTracer tracer;
+    private final Timer singleTimer;
+    private final Timer pageTimer;
+    private final Timer saveTimer;
+    private final Timer backgroundTimer;
+
+    public CarEnricher(
+            PriceClient priceClient,
+            MapsClient mapsClient,
+            ReactiveCarRepository carRepository,
+            @Value("${vehicles.enrichment.mode:CONCURRENT}") Mode mode,
+            @Value("${vehicles.enrichment.concurrency:32}") int concurrency,
+            @Value("${vehicles.enrichment.batch-size:100}") int batchSize,
+            @Value("${vehicles.enrichment.persist-addresses:false}") boolean persistAddresses,
+            @Value("${vehicles.enrichment.address-max-age-days:30}") long addressMaxAgeDays,
+            @Value("${vehicles.enrichment.background.max-in-flight:256}") int backgroundMaxInFlight,
+            MeterRegistry registry,
+            ReactiveTracer tracer
+    ) {
+        this.priceClient = priceClient;
+        this.mapsClient = mapsClient;
+        this.carRepository = carRepository;
+        this.mode = mode;
+        this.concurrency = concurrency;
+        this.batchSize = batchSize;
+        this.persistAddresses = persistAddresses;
+        this.addressMaxAge = Duration.ofDays(addressMaxAgeDays);
+        this.backgroundPermits = new Semaphore(backgroundMaxInFlight);
+        this.registry = registry;
+        this.tracer = tracer;
+        this.singleTimer = enrichments(registry, "single");
+        this.pageTimer = enrichments(registry, "page");
+        this.saveTimer = enrichments(registry, "save");
+        this.backgroundTimer = enrichments(registry, "background");
+    }
+
+    /**
+     * Adds price and location data to a single car read from the repository.
+     *
+     * @param car the car to enrich
+     */
+    public void enrich(Car car) {
+        this.enrich(car, Enrichment.ALL);
+    }
+
+    /**
+     * Adds the requested data to a single car read from the repository.
+     * Services whose data is not requested are not called.
+     *
+     * @param car         the car to enrich
+     * @param enrichments the data to add
+     * @return whether every requested value was gathered, rather than
+     * left to its fallback because a service was down
+     */
+    public boolean enrich(Car car, Set<Enrichment> enrichments) {
+        if (enrichments.isEmpty()) {
+            return true;
+        }
+
+        this.timed("enrich car", this.singleTimer, span -> {
+            span.tag("vehicle.id", car.getId());
+
+            if (this.mode == Mode.SEQUENTIAL) {
+                this.enrichSequentially(car, enrichments);
+            } else {
+                this.enrichConcurrently(car, enrichments).block();
+            }
+        });
+
+        return this.isComplete(car, enrichments);
+    }
+
+    /**
+     * Adds price and location data to a car about to be saved. The resolved
+     * address is left to be stored with the car itself. A new car has no ID
+     * to look its price up with yet: it is left without price, to be priced
+     * once saved.
+     *
+     * @param car the car to enrich
+     */
+    public void enrichForSave(Car car) {
+        this.timedAsync("enrich car for save", this.saveTimer, span -> {
+            Mono<Void> price = car.getId() == null
+                    ? Mono.empty()
+                    : this.priceClient.getPriceAsync(car.getId()).doOnNext(car::setPrice).then();
+
+            return Mono.when(price, this.resolveLocation(car, false));
+        }).block();
+    }
+
+    /**
+     * Requests the price and address of a car just saved without waiting for
+     * them. The price lands in the price cache, the address in the geocode
+     * cache and, when addresses are persisted, with the stored car; both are
+     * then at hand when the car is read. At most
+     * {@code vehicles.enrichment.background.max-in-flight} cars are enriched
+     * at once: beyond that, cars are left to be enriched when read.
+     *
+     * @param car the saved car; it is not modified
+     */
+    public void enrichInBackground(Car car) {
+        if (!this.backgroundPermits.tryAcquire()) {
+            log.debug("Too many vehicles enriched in the background, vehicle {} is left for later", car.getId());
+            return;
+        }
+
+        Car copy = new Car();
+        copy.setId(car.getId());
+        copy.setLocation(new Location(car.getLocation()));
+
+        Mono<Car> enrichment = this.timedAsync("enrich car in background", this.backgroundTimer, span -> {
+            span.tag("vehicle.id", car.getId());
+            return this.enrichConcurrently(copy, Enrichment.ALL);
+        });
+
+        enrichment
+                .doFinally(signal -> this.backgroundPermits.release())
+                .subscribe(
+                        enriched -> { },
+                        e -> log.warn("Could not enrich vehicle {} in the background", car.getId(), e)
+                );
+    }
+
+    /**
+     * Adds price and location data to every given car. In concurrent mode the cars
+     * are split into batches of {@code vehicles.enrichment.batch-size}; each batch
+     * needs one pricing and one maps request, issued in parallel, and at most
+     * {@code vehicles.enrichment.concurrency} batches are in flight at the same time.
+     *
+     * @param cars the cars to enrich
+     */
+    public void enrichAll(Collection<Car> cars) {
+        this.enrichAll(cars, Enrichment.ALL);
+    }
+
+    /**
+     * Adds the requested data to every given car, batching remote calls as
+     * {@link #enrichAll(Collection)} does. Services whose data is not requested
+     * are not called.
+     *
+     * @param cars        the cars to enrich
+     * @param enrichments the data to add
+     * @return whether every requested value of every car was gathered, rather
+     * than left to its fallback because a service was down
+     */
+    public boolean enrichAll(Collection<Car> cars, Set<Enrichment> enrichments) {
+        if (enrichments.isEmpty()) {
+            return true;
+        }
+
+        this.timed("enrich page", this.pageTimer, span -> {
+            span.tag("vehicle.count", cars.size());
+
+            if (this.mode == Mode.SEQUENTIAL) {
+                cars.forEach(car -> this.enrichSequentially(car, enrichments));
+            } else {
+                this.enrichBatches(cars, enrichments).then().block();
+            }
+        });
+
+        return cars.stream().allMatch(car -> this.isComplete(car, enrichments));
+    }
+
+    /**
+     * Requests price and location data of every given car without blocking the
+     * caller, one car after the other in sequential mode, else batching them as
+     * {@link #enrichAll(Collection)} does.
+     *
+     * @param cars the cars to enrich
+     * @return a Flux emitting the cars, in the given order, once their values are set
+     */
+    public Flux<Car> enrichAllAsync(Collection<Car> cars) {
+        return this.enrichAllAsync(cars, Enrichment.ALL);
+    }
+
+    /**
+     * Requests the given data of every given car without blocking the caller,
+     * as {@link #enrichAllAsync(Collection)} does.
+     *
+     * @param cars        the cars to enrich
+     * @param enrichments the data to add
+     * @return a Flux emitting the cars, in the given order, once their values are set
+     */
+    public Flux<Car> enrichAllAsync(Collection<Car> cars, Set<Enrichment> enrichments) {
+        return this.tracer.traceMany("enrich page", span -> {
+            Timer.Sample sample = Timer.start(this.registry);
+            span.tag("vehicle.count", cars.size());
+
+            Flux<Car> enriched = this.mode == Mode.SEQUENTIAL
+                    ? Flux.fromIterable(cars).concatMap(car -> this.enrichOneByOne(car, enrichments))
+                    : this.enrichBatches(cars, enrichments);
+
+            return enriched.doFinally(signal -> sample.stop(this.pageTimer));
+        });
+    }
+
+    /**
+     * Requests price and location of a car in parallel.
+     *
+     * @param car the car to enrich
+     * @return a Mono emitting the car once both values are set
+     */
+    public Mono<Car> enrichAsync(Car car) {
+        return this.enrichAsync(car, Enrichment.ALL);
+    }
+
+    /**
+     * Requests the given data of a car in parallel.
+     *
+     * @param car         the car to enrich
+     * @param enrichments the data to add
+     * @return a Mono emitting the car once the requested values are set
+     */
+    public Mono<Car> enrichAsync(Car car, Set<Enrichment> enrichments) {
+        return this.timedAsync("enrich car", this.singleTimer, span -> {
+            span.tag("vehicle.id", car.getId());
+            return this.enrichConcurrently(car, enrichments);
+        });
+    }
+
+    private void enrichSequentially(Car car, Set<Enrichment> enrichments) {
+        if (enrichments.contains(Enrichment.ADDRESS)) {
+            this.resolveLocation(car, true).block();
+        }
+        if (enrichments.contains(Enrichment.PRICE)) {
+            car.setPrice(this.priceClient.getPrice(car.getId()));
+        }
+    }
+
+    /**
+     * Requests the address, then the price of a car, as
+     * {@link #enrichSequentially(Car, Set)} does without blocking.
+     */
+    private Mono<Car> enrichOneByOne(Car car, Set<Enrichment> enrichments) {
+        Mono<Void> location = enrichments.contains(Enrichment.ADDRESS)
+                ? this.resolveLocation(car, true).then()
+                : Mono.empty();
+        Mono<Void> price = enrichments.contains(Enrichment.PRICE)
+                ? this.priceClient.getPriceAsync(car.getId()).doOnNext(car::setPrice).then()
+                : Mono.empty();
+
+        return location.then(price).thenReturn(car);
+    }
+
+    private Mono<Car> enrichConcurrently(Car car, Set<Enrichment> enrichments) {
+        Mono<Void> price = enrichments.contains(Enrichment.PRICE)
+                ? this.priceClient.getPriceAsync(car.getId()).doOnNext(car::setPrice).then()
+                : Mono.empty();
+        Mono<Void> location = enrichments.contains(Enrichment.ADDRESS)
+                ? this.resolveLocation(car, true).then()
+                : Mono.empty();
+
+        return Mono.when(price, location).thenReturn(car);
+    }
+
+    private Flux<Car> enrichBatches(Collection<Car> cars, Set<Enrichment> enrichments) {
+        return Flux.fromIterable(cars)
+                .buffer(this.batchSize)
+                .flatMapSequential(batch -> this.enrichBatch(batch, enrichments).thenMany(Flux.fromIterable(batch)),
+                        this.concurrency);
+    }
+
+    private Mono<Void> enrichBatch(List<Car> cars, Set<Enrichment> enrichments) {
+        List<Long> ids = cars.stream().map(Car::getId).collect(Collectors.toList());
+        List<Car> unresolved = enrichments.contains(Enrichment.ADDRESS)
+                ? cars.stream().filter(this::needsAddress).collect(Collectors.toList())
+                : Collections.emptyList();
+        List<LocalDateTime> previousResolutions = unresolved.stream()
+                .map(car -> car.getLocation().getResolvedAt())
+                .collect(Collectors.toList());
+
+        Mono<Void> prices = !enrichments.contains(Enrichment.PRICE)
+                ? Mono.empty()
+                : this.priceClient.getPrices(ids)
+                        .doOnNext(pricesById -> cars.forEach(car -> car.setPrice(pricesById.get(car.getId()))))
+                        .then();
+
+        Mono<Void> locations = unresolved.isEmpty()
+                ? Mono.empty()
+                : this.mapsClient
+                        .getAddresses(unresolved.stream().map(Car::getLocation).collect(Collectors.toList()))
+                        .doOnNext(resolved -> {
+                            for (int i = 0; i < unresolved.size(); i++) {
+                                this.storeIfResolved(unresolved.get(i), previousResolutions.get(i));
+                            }
+                        })
+                        .then();
+
+        return Mono.when(prices, locations);
+    }
+
+    /**
+     * @param car       the car whose location to resolve
+     * @param writeBack whether a newly resolved address is stored right away
+     * @return a Mono emitting the car's location, resolved when possible
+     */
+    private Mono<Location> resolveLocation(Car car, boolean writeBack) {
+        if (!this.needsAddress(car)) {
+            return Mono.just(car.getLocation());
+        }
+
+        LocalDateTime previousResolution = car.getLocation().getResolvedAt();
+
+        return this.mapsClient
+                .getAddressAsync(car.getLocation())
+                .doOnNext(location -> {
+                    if (writeBack) {
+                        this.storeIfResolved(car, previousResolution);
+                    }
+                });
+    }
+
+    private void timed(String name, Timer timer, Consumer<Span> enrichment) {
+        Timer.Sample sample = Timer.start(this.registry);
+        try {
+            this.tracer.run(name, enrichment);
+        } finally {
+            sample.stop(timer);
+        }
+    }
+
+    private <T> Mono<T> timedAsync(String name, Timer timer, Function<Span, Mono<T>> enrichment) {
+        return this.tracer.trace(name, span -> {
+            Timer.Sample sample = Timer.start(this.registry);
+
+            return enrichment.apply(span).doFinally(signal -> sample.stop(timer));
+        });
+    }
+
+    private static Timer enrichments(MeterRegistry registry, String kind) {
+        return Timer.builder("vehicles.enrichment")
+                .description("Time taken to add price and address to vehicles, by kind of enrichment")
+                .tag("kind", kind)
+                .register(registry);
+    }
+
+    /**
+     * @return whether the requested values of a car are set, neither the note
+     * that the price has to be consulted nor a missing or outdated address
+     */
+    private boolean isComplete(Car car, Set<Enrichment> enrichments) {
+        return (!enrichments.contains(Enrichment.PRICE) || PriceClient.isAvailable(car.getPrice()))
+                && (!enrichments.contains(Enrichment.ADDRESS) || car.getLocation()
+                        .isAddressResolvedSince(LocalDateTime.now().minus(this.addressMaxAge)));
+    }
+
+    private boolean needsAddress(Car car) {
+        return !this.persistAddresses
+                || !car.getLocation().isAddressResolvedSince(LocalDateTime.now().minus(this.addressMaxAge));
+    }
+
+    /**
+     * Stores the address of a car read from the repository in the background,
+     * provided the maps service resolved it.
+     */
+    private void storeIfResolved(Car car, LocalDateTime previousResolution) {
+        Location location = car.getLocation();
+
+        if (!this.persistAddresses
+                || car.getId() == null
+                || Objects.equals(previousResolution, location.getResolvedAt())) {
+            return;
+        }
+
+        this.carRepository
+                .updateResolvedAddress(car.getId(), location)
+                .subscribe(
+                        updated -> { },
+                        e -> log.warn("Could not store the address of vehicle {}", car.getId(), e)
+                );
+    }
+}
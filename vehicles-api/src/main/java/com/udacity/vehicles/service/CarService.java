@@ -1,14 +1,31 @@
 package com.udacity.vehicles.service;
 
-import com.udacity.vehicles.client.maps.MapsClient;
-import com.udacity.vehicles.client.prices.PriceClient;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.udacity.vehicles.domain.car.*;
 import com.udacity.vehicles.domain.manufacturer.Manufacturer;
-import org.modelmapper.*;
+import com.udacity.vehicles.search.CarLocationIndex;
+import com.udacity.vehicles.search.CarTextIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implements the car service create, read, update or delete
@@ -17,37 +34,174 @@ import java.util.stream.Collectors;
  */
 @Service
 public class CarService {
+
+    /**
+     * When the price and location of a saved vehicle are gathered.
+     */
+    public enum WriteMode {
+        /**
+         * Before the vehicle is stored; a write waits for the pricing and maps services.
+         */
+        SYNC,
+        /**
+         * In the background once the vehicle is stored; a write returns the
+         * vehicle without price and address unless asked to wait for them.
+         */
+        ASYNC
+    }
+
+    private static final Set<Enrichment> PRICE = Collections.unmodifiableSet(EnumSet.of(Enrichment.PRICE));
+
     private final CarRepository carRepository;
     private final ManufacturerService manufacturerService;
-    private final ModelMapper modelMapper;
-    private final PriceClient pricesWebClient;
-    private final MapsClient mapsWebClient;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final CarEnricher carEnricher;
+    private final EntityManager entityManager;
+    private final CarTextIndex carTextIndex;
+    private final CarLocationIndex carLocationIndex;
+    private final int exportBatchSize;
+    private final WriteMode writeMode;
 
     public CarService(
             CarRepository carRepository,
             ManufacturerService manufacturerService,
-            ModelMapper modelMapper,
-            PriceClient pricesWebClient,
-            MapsClient mapsWebClient
+            ObjectMapper objectMapper,
+            Validator validator,
+            CarEnricher carEnricher,
+            EntityManager entityManager,
+            CarTextIndex carTextIndex,
+            CarLocationIndex carLocationIndex,
+            @Value("${vehicles.export.batch-size:100}") int exportBatchSize,
+            @Value("${vehicles.enrichment.write-mode:SYNC}") WriteMode writeMode
     ) {
         this.carRepository = carRepository;
         this.manufacturerService = manufacturerService;
-        this.modelMapper = modelMapper;
-        this.pricesWebClient = pricesWebClient;
-        this.mapsWebClient = mapsWebClient;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.carEnricher = carEnricher;
+        this.entityManager = entityManager;
+        this.carTextIndex = carTextIndex;
+        this.carLocationIndex = carLocationIndex;
+        this.exportBatchSize = exportBatchSize;
+        this.writeMode = writeMode;
     }
 
     /**
-     * Gathers a list of all vehicles
+     * Gathers a page of vehicles, ordered by ID
      *
-     * @return a list of all vehicles in the CarRepository
+     * @param after ID of the last vehicle of the previous page, or null for the first page
+     * @param limit maximum number of vehicles to return
+     * @return a slice of the vehicles in the CarRepository
      */
-    public List<Car> list() {
-        return this.carRepository.findAll()
-                .stream()
-                .peek(this::addPrice)
-                .peek(this::addLocation)
-                .collect(Collectors.toList());
+    public Slice<Car> list(Long after, int limit) {
+        return this.list(after, limit, Enrichment.ALL);
+    }
+
+    /**
+     * Gathers a page of vehicles, ordered by ID, completed with the given data only
+     *
+     * @param after       ID of the last vehicle of the previous page, or null for the first page
+     * @param limit       maximum number of vehicles to return
+     * @param enrichments the data to gather from the pricing and maps services
+     * @return a slice of the vehicles in the CarRepository
+     */
+    public Slice<Car> list(Long after, int limit, Set<Enrichment> enrichments) {
+        Slice<Car> cars = this.carRepository.findByIdGreaterThan(
+                after == null ? 0L : after,
+                PageRequest.of(0, limit, Sort.by("id"))
+        );
+
+        this.carEnricher.enrichAll(cars.getContent(), enrichments);
+
+        return cars;
+    }
+
+    /**
+     * Searches vehicles one page at a time, ordered by ID
+     *
+     * @param criteria    the filters the vehicles must pass
+     * @param after       ID of the last vehicle of the previous page, or null for the first page
+     * @param limit       maximum number of vehicles to return
+     * @param enrichments the data to gather from the pricing and maps services
+     * @return a slice of the matching vehicles
+     */
+    public Slice<Car> search(CarSearchCriteria criteria, Long after, int limit, Set<Enrichment> enrichments) {
+        Slice<Car> cars = this.carRepository.search(CarSpecifications.matching(criteria), after, limit);
+
+        this.carEnricher.enrichAll(cars.getContent(), enrichments);
+
+        return cars;
+    }
+
+    /**
+     * Searches vehicles by free text over model, body, engine, fuel type,
+     * external color and manufacturer name, tolerating typos
+     *
+     * @param query       words the vehicles must match, such as "bmw x5 diesel black"
+     * @param limit       maximum number of vehicles to return
+     * @param enrichments the data to gather from the pricing and maps services
+     * @return the matching vehicles, best match first
+     */
+    public List<Car> searchText(String query, int limit, Set<Enrichment> enrichments) {
+        return this.findAllInOrder(this.carTextIndex.search(query, limit), enrichments);
+    }
+
+    /**
+     * Finds the vehicles nearest to a point, within a radius if given
+     *
+     * @param lat         latitude of the point
+     * @param lon         longitude of the point
+     * @param radiusKm    maximum distance from the point in kilometers, or null for no maximum
+     * @param limit       maximum number of vehicles to return
+     * @param enrichments the data to gather from the pricing and maps services
+     * @return the vehicles found, nearest first
+     */
+    public List<Car> near(double lat, double lon, Double radiusKm, int limit, Set<Enrichment> enrichments) {
+        List<Long> ids = radiusKm == null
+                ? this.carLocationIndex.nearest(lat, lon, limit)
+                : this.carLocationIndex.withinRadius(lat, lon, radiusKm, limit);
+
+        return this.findAllInOrder(ids, enrichments);
+    }
+
+    /**
+     * Gathers a page of vehicle summaries, ordered by ID. Neither the pricing
+     * nor the maps service is called.
+     *
+     * @param after ID of the last vehicle of the previous page, or null for the first page
+     * @param limit maximum number of vehicles to return
+     * @return a slice of the vehicle summaries
+     */
+    public Slice<CarSummary> listSummaries(Long after, int limit) {
+        return this.carRepository.findSummariesByIdGreaterThan(after == null ? 0L : after, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Visits every vehicle in ID order, in batches enriched with location and
+     * price. Vehicles are read through a database cursor and detached once
+     * visited, so memory use does not depend on the size of the inventory.
+     *
+     * @param consumer receives each batch of vehicles; it may not keep them
+     */
+    @Transactional(readOnly = true)
+    public void export(Consumer<List<Car>> consumer) {
+        try (Stream<Car> cars = this.carRepository.streamAll()) {
+            List<Car> batch = new ArrayList<>(this.exportBatchSize);
+            Iterator<Car> iterator = cars.iterator();
+
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+
+                if (batch.size() == this.exportBatchSize || !iterator.hasNext()) {
+                    this.carEnricher.enrichAll(batch);
+                    consumer.accept(batch);
+
+                    batch.clear();
+                    this.entityManager.clear();
+                }
+            }
+        }
     }
 
     /**
@@ -57,43 +211,110 @@ public class CarService {
      * @return the requested car's information, including location and price
      */
     public Car findById(Long id) {
+        return this.findById(id, Enrichment.ALL);
+    }
+
+    /**
+     * Gets car information by ID (or throws exception if non-existent),
+     * completed with the given data only
+     *
+     * @param id          the ID number of the car to gather information on
+     * @param enrichments the data to gather from the pricing and maps services
+     * @return the requested car's information
+     */
+    public Car findById(Long id, Set<Enrichment> enrichments) {
         Car car = this.carRepository.findById(id).orElseThrow(CarNotFoundException::new);
 
-        this.addPrice(car);
-        this.addLocation(car);
+        this.carEnricher.enrich(car, enrichments);
 
         return car;
     }
 
     /**
-     * Either creates or updates a vehicle, based on prior existence of car
+     * Completes a car read without enrichment, such as once it is known to
+     * have changed since a client last read it
      *
-     * @param car A car object, which can be either new or existing
-     * @return the new/updated car is stored in the repository
+     * @param car         the car to complete
+     * @param enrichments the data to gather from the pricing and maps services
+     * @return whether every requested value was gathered, rather than left to its fallback
      */
-    public Car save(Car car) {
-        Manufacturer manufacturer = car.getDetails().getManufacturer();
+    public boolean enrich(Car car, Set<Enrichment> enrichments) {
+        return this.carEnricher.enrich(car, enrichments);
+    }
 
-        this.manufacturerService
-                .findByCodeAndName(manufacturer.getCode(), manufacturer.getName())
-                .orElseThrow(ManufacturerNotExistsException::new);
+    /**
+     * Completes cars read without enrichment
+     *
+     * @param cars        the cars to complete
+     * @param enrichments the data to gather from the pricing and maps services
+     * @return whether every requested value was gathered, rather than left to its fallback
+     */
+    public boolean enrichAll(List<Car> cars, Set<Enrichment> enrichments) {
+        return this.carEnricher.enrichAll(cars, enrichments);
+    }
 
-        this.addLocation(car);
-        this.addPrice(car);
+    /**
+     * Gets the summary of a car by ID (or throws exception if non-existent)
+     *
+     * @param id the ID number of the car to gather information on
+     * @return the requested car's summary
+     */
+    public CarSummary findSummaryById(Long id) {
+        return this.carRepository.findSummaryById(id).orElseThrow(CarNotFoundException::new);
+    }
+
+    /**
+     * Either creates or updates a vehicle, based on prior existence of car.
+     * On update, properties left null keep their stored value.
+     *
+     * @param car               A car object, which can be either new or existing
+     * @param waitForEnrichment whether to gather price and location before
+     *                          returning, even in asynchronous write mode
+     * @return the new/updated car is stored in the repository
+     */
+    public Car save(Car car, boolean waitForEnrichment) {
+        Manufacturer manufacturer = this.resolveManufacturer(car);
 
         if (car.getId() != null) {
-            return carRepository.findById(car.getId())
-                    .map(carToBeUpdated -> {
-                        this.modelMapper.getConfiguration().setPropertyCondition(Conditions.isNotNull());
-                        this.modelMapper.map(car.getDetails(), carToBeUpdated.getDetails());
-                        this.modelMapper.map(car.getLocation(), carToBeUpdated.getLocation());
-                        this.modelMapper.map(car, carToBeUpdated);
-
-                        return carRepository.save(carToBeUpdated);
-                    }).orElseThrow(CarNotFoundException::new);
+            Car stored = this.carRepository.findById(car.getId()).orElseThrow(CarNotFoundException::new);
+
+            return this.update(stored, CarMapper.copyNonNull(car, stored), manufacturer, waitForEnrichment);
         }
 
-        return carRepository.save(car);
+        return this.store(car, manufacturer, waitForEnrichment);
+    }
+
+    /**
+     * Applies a JSON Merge Patch (RFC 7396) to a vehicle. A patch leaving
+     * the vehicle as it was stores nothing.
+     *
+     * @param id                the ID number of the car to patch
+     * @param patch             members of the car to replace, with null values for members to remove
+     * @param waitForEnrichment whether to gather price and location before
+     *                          returning, even in asynchronous write mode
+     * @return the patched car
+     */
+    public Car patch(Long id, JsonNode patch, boolean waitForEnrichment) {
+        if (!patch.isObject()) {
+            throw new InvalidPatchException();
+        }
+
+        Car stored = this.carRepository.findById(id).orElseThrow(CarNotFoundException::new);
+        Car patched;
+
+        try {
+            patched = this.objectMapper.treeToValue(
+                    JsonMergePatch.apply(this.objectMapper.valueToTree(stored), patch), Car.class);
+        } catch (JsonProcessingException e) {
+            throw new InvalidPatchException(e.getOriginalMessage());
+        }
+
+        if (!this.validator.validate(patched).isEmpty()) {
+            throw new InvalidPatchException();
+        }
+        Manufacturer manufacturer = this.resolveManufacturer(patched);
+
+        return this.update(stored, CarMapper.copyAll(patched, stored), manufacturer, waitForEnrichment);
     }
 
     /**
@@ -105,16 +326,93 @@ public class CarService {
         this.carRepository
                 .findById(id)
                 .ifPresentOrElse(
-                        car -> this.carRepository.deleteById(id),
+                        car -> {
+                            this.carRepository.deleteById(id);
+                            this.carTextIndex.remove(id);
+                            this.carLocationIndex.remove(id);
+                        },
                         CarNotFoundException::new
                 );
     }
 
-    private void addLocation(Car car) {
-        car.setLocation(this.mapsWebClient.getAddress(car.getLocation()));
+    /**
+     * @return the registered manufacturer of the car, checked without database access
+     */
+    private Manufacturer resolveManufacturer(Car car) {
+        Manufacturer manufacturer = car.getDetails().getManufacturer();
+
+        return this.manufacturerService
+                .findByCodeAndName(manufacturer.getCode(), manufacturer.getName())
+                .orElseThrow(ManufacturerNotExistsException::new);
+    }
+
+    /**
+     * Stores a car changed by an update; an unchanged car is neither written
+     * nor has its modification date moved.
+     */
+    private Car update(Car stored, boolean changed, Manufacturer manufacturer, boolean waitForEnrichment) {
+        if (changed) {
+            return this.store(stored, manufacturer, waitForEnrichment);
+        }
+
+        if (this.enrichesBeforeSave(waitForEnrichment)) {
+            this.carEnricher.enrich(stored);
+        } else {
+            this.carEnricher.enrichInBackground(stored);
+        }
+
+        return stored;
     }
 
-    private void addPrice(Car car) {
-        car.setPrice(this.pricesWebClient.getPrice(car.getId()));
+    /**
+     * Saves a car referencing its manufacturer by code, so that the
+     * manufacturer is not read again, then indexes it. Price and location
+     * are gathered before saving or in the background, as the write mode says;
+     * a new car is priced once saved, as its price is looked up by its ID.
+     */
+    private Car store(Car car, Manufacturer manufacturer, boolean waitForEnrichment) {
+        boolean enrichBeforeSave = this.enrichesBeforeSave(waitForEnrichment);
+        boolean created = car.getId() == null;
+        if (enrichBeforeSave) {
+            this.carEnricher.enrichForSave(car);
+        }
+
+        car.getDetails().setManufacturer(this.manufacturerService.getReference(manufacturer.getCode()));
+
+        Car saved = this.carRepository.save(car);
+        saved.getDetails().setManufacturer(manufacturer);
+
+        if (!enrichBeforeSave) {
+            this.carEnricher.enrichInBackground(saved);
+        } else if (created) {
+            this.carEnricher.enrich(saved, PRICE);
+        }
+
+        return this.indexed(saved);
+    }
+
+    private boolean enrichesBeforeSave(boolean waitForEnrichment) {
+        return waitForEnrichment || this.writeMode == WriteMode.SYNC;
+    }
+
+    private List<Car> findAllInOrder(List<Long> ids, Set<Enrichment> enrichments) {
+        Map<Long, Car> carsById = new HashMap<>();
+        this.carRepository.findAllById(ids).forEach(car -> carsById.put(car.getId(), car));
+
+        List<Car> cars = ids.stream()
+                .map(carsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        this.carEnricher.enrichAll(cars, enrichments);
+
+        return cars;
+    }
+
+    private Car indexed(Car car) {
+        this.carTextIndex.index(car);
+        this.carLocationIndex.index(car);
+
+        return car;
     }
 }
@@ -0,0 +1,29 @@
+package com.udacity.vehicles.service;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Data gathered from other services to complete a vehicle read from the repository.
+ */
+public enum Enrichment {
+    /**
+     * The price, requested from the pricing service.
+     */
+    PRICE,
+    /**
+     * The address of the vehicle's location, requested from the maps service.
+     */
+    ADDRESS;
+
+    /**
+     * Every enrichment, as applied when a client does not narrow down the fields it needs.
+     */
+    public static final Set<Enrichment> ALL = Collections.unmodifiableSet(EnumSet.allOf(Enrichment.class));
+
+    /**
+     * No enrichment, for vehicles read as stored.
+     */
+    public static final Set<Enrichment> NONE = Collections.unmodifiableSet(EnumSet.noneOf(Enrichment.class));
+}
@@ -0,0 +1,17 @@
+package com.udacity.vehicles.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.BAD_REQUEST, reason = InvalidPatchException.INVALID_PATCH_MESSAGE)
+public class InvalidPatchException extends RuntimeException {
+
+    public static final String INVALID_PATCH_MESSAGE = "patch does not result in a valid car";
+
+    public InvalidPatchException() {
+    }
+
+    public InvalidPatchException(String message) {
+        super(message);
+    }
+}
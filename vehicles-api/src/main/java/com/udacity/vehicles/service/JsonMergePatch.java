@@ -0,0 +1,44 @@
+package com.udacity.vehicles.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Applies a JSON Merge Patch (RFC 7396) to a JSON document.
+ */
+final class JsonMergePatch {
+
+    private JsonMergePatch() {
+    }
+
+    /**
+     * @param target the document to patch; objects in it may be modified
+     * @param patch  members to replace, with null values for members to remove
+     * @return the patched document
+     */
+    static JsonNode apply(JsonNode target, JsonNode patch) {
+        if (!patch.isObject()) {
+            return patch;
+        }
+
+        ObjectNode result = target != null && target.isObject()
+                ? (ObjectNode) target
+                : ((ObjectNode) patch).objectNode();
+
+        Iterator<Map.Entry<String, JsonNode>> members = patch.fields();
+        while (members.hasNext()) {
+            Map.Entry<String, JsonNode> member = members.next();
+
+            if (member.getValue().isNull()) {
+                result.remove(member.getKey());
+            } else {
+                result.set(member.getKey(), apply(result.get(member.getKey()), member.getValue()));
+            }
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,17 @@
+package com.udacity.vehicles.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.CONFLICT, reason = ManufacturerInUseException.IN_USE_MESSAGE)
+public class ManufacturerInUseException extends RuntimeException {
+
+    public static final String IN_USE_MESSAGE = "Manufacturer still has cars";
+
+    public ManufacturerInUseException() {
+    }
+
+    public ManufacturerInUseException(String message) {
+        super(message);
+    }
+}
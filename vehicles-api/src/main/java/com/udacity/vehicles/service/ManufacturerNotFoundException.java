@@ -0,0 +1,17 @@
+package com.udacity.vehicles.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.NOT_FOUND, reason = ManufacturerNotFoundException.MANUFACTURER_NOT_FOUND_MESSAGE)
+public class ManufacturerNotFoundException extends RuntimeException {
+
+    public static final String MANUFACTURER_NOT_FOUND_MESSAGE = "manufacturer not found";
+
+    public ManufacturerNotFoundException() {
+    }
+
+    public ManufacturerNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -1,19 +1,127 @@
 package com.udacity.vehicles.service;
 
+import com.udacity.vehicles.domain.car.CarRepository;
 import com.udacity.vehicles.domain.manufacturer.*;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.Optional;
+import java.util.*;
 
+/**
+ * Implements the manufacturer service. Manufacturers are few and rarely
+ * change, so they are read from an immutable in-memory registry, loaded
+ * when the application starts and replaced as a whole whenever a
+ * manufacturer is saved or deleted. Validating and resolving the
+ * manufacturer of a car needs no database access.
+ */
 @Service
 public class ManufacturerService {
     private final ManufacturerRepository repository;
+    private final CarRepository carRepository;
 
-    public ManufacturerService(ManufacturerRepository repository) {
+    private volatile Map<Integer, Manufacturer> registry = Collections.emptyMap();
+
+    public ManufacturerService(ManufacturerRepository repository, CarRepository carRepository) {
         this.repository = repository;
+        this.carRepository = carRepository;
+    }
+
+    /**
+     * Reloads the registry from the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void refresh() {
+        Map<Integer, Manufacturer> manufacturers = new LinkedHashMap<>();
+        this.repository.findAll().stream()
+                .sorted(Comparator.comparing(Manufacturer::getCode))
+                .forEach(manufacturer -> manufacturers.put(manufacturer.getCode(), manufacturer));
+
+        this.registry = Collections.unmodifiableMap(manufacturers);
+    }
+
+    public Optional<Manufacturer> findByCode(Integer code) {
+        return Optional.ofNullable(this.registry.get(code));
     }
 
     public Optional<Manufacturer> findByCodeAndName(Integer code, String name) {
-        return this.repository.findManufacturerByCodeAndName(code, name);
+        return this.findByCode(code).filter(manufacturer -> manufacturer.getName().equals(name));
+    }
+
+    /**
+     * @return every manufacturer, ordered by code
+     */
+    public List<Manufacturer> findAll() {
+        return new ArrayList<>(this.registry.values());
+    }
+
+    /**
+     * Gets a reference to a stored manufacturer that a car can be saved with,
+     * without reading the manufacturer from the database
+     *
+     * @param code the code of the manufacturer
+     * @return a reference to the manufacturer, only valid in the transaction saving the car
+     */
+    public Manufacturer getReference(Integer code) {
+        return this.repository.getOne(code);
+    }
+
+    /**
+     * Creates or renames a manufacturer
+     *
+     * @param manufacturer the manufacturer to store
+     * @return the stored manufacturer
+     */
+    public synchronized Manufacturer save(Manufacturer manufacturer) {
+        Manufacturer saved = this.repository.save(manufacturer);
+        this.refresh();
+
+        return saved;
+    }
+
+    /**
+     * Deletes a manufacturer no car is made by. The check and the delete
+     * run in one transaction, and a car saved with the manufacturer
+     * meanwhile is caught by the foreign key when the delete is flushed.
+     * The registry is reloaded once the delete is committed: reloaded
+     * before, by this or a concurrent save, it would keep the manufacturer.
+     *
+     * @param code the code of the manufacturer to delete
+     */
+    @Transactional
+    public synchronized void delete(Integer code) {
+        if (!this.registry.containsKey(code)) {
+            throw new ManufacturerNotFoundException();
+        }
+        if (this.carRepository.existsByDetailsManufacturerCode(code)) {
+            throw new ManufacturerInUseException();
+        }
+
+        try {
+            this.repository.deleteById(code);
+            this.repository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new ManufacturerInUseException();
+        }
+
+        this.refreshAfterCommit();
+    }
+
+    private void refreshAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.refresh();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                ManufacturerService.this.refresh();
+            }
+        });
     }
 }
@@ -0,0 +1,54 @@
+package com.udacity.vehicles.service;
+
+import com.udacity.tracing.ReactiveTracer;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.ReactiveCarRepository;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implements the read operations of the car service without blocking
+ * the caller while the database, pricing and maps services answer.
+ * The span current when an operation is subscribed to is carried along,
+ * whichever threads the operation continues on.
+ */
+@Service
+public class ReactiveCarService {
+    private final ReactiveCarRepository carRepository;
+    private final CarEnricher carEnricher;
+
+    public ReactiveCarService(ReactiveCarRepository carRepository, CarEnricher carEnricher) {
+        this.carRepository = carRepository;
+        this.carEnricher = carEnricher;
+    }
+
+    /**
+     * Gathers a page of vehicles, ordered by ID
+     *
+     * @param after ID of the last vehicle of the previous page, or null for the first page
+     * @param limit maximum number of vehicles to return
+     * @return a Mono emitting the slice of vehicles once price and location are set
+     */
+    public Mono<Slice<Car>> list(Long after, int limit) {
+        return this.carRepository
+                .findByIdGreaterThan(after == null ? 0L : after, limit)
+                .flatMap(cars -> this.carEnricher.enrichAllAsync(cars.getContent()).then(Mono.just(cars)))
+                .subscriberContext(ReactiveTracer.withCurrentSpan());
+    }
+
+    /**
+     * Gets car information by ID
+     *
+     * @param id the ID number of the car to gather information on
+     * @return a Mono emitting the requested car's information, including location
+     * and price, or failing with {@link CarNotFoundException} if non-existent
+     */
+    public Mono<Car> findById(Long id) {
+        return this.carRepository
+                .findById(id)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new CarNotFoundException())))
+                .flatMap(this.carEnricher::enrichAsync)
+                .subscriberContext(ReactiveTracer.withCurrentSpan());
+    }
+}
@@ -1,30 +1,54 @@
 package com.udacity.vehicles.api;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.udacity.vehicles.client.maps.MapsClient;
 import com.udacity.vehicles.client.prices.PriceClient;
 import com.udacity.vehicles.domain.*;
 import com.udacity.vehicles.domain.car.*;
 import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import com.udacity.vehicles.service.BulkResult;
+import com.udacity.vehicles.service.CarBulkService;
 import com.udacity.vehicles.service.CarService;
+import com.udacity.vehicles.service.ReactiveCarService;
 import org.junit.*;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.json.AutoConfigureJsonTesters;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.json.JacksonTester;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.*;
+import reactor.core.publisher.Mono;
 
 import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -45,6 +69,12 @@ public class CarControllerTest {
     @MockBean
     private CarService carService;
 
+    @MockBean
+    private CarBulkService carBulkService;
+
+    @MockBean
+    private ReactiveCarService reactiveCarService;
+
     @MockBean
     private PriceClient priceClient;
 
@@ -59,9 +89,12 @@ public class CarControllerTest {
         Car car = getCar();
         car.setId(1L);
 
-        given(carService.save(any())).willReturn(car);
-        given(carService.findById(any())).willReturn(car);
-        given(carService.list()).willReturn(Collections.singletonList(car));
+        given(carService.save(any(), anyBoolean())).willReturn(car);
+        given(carService.findById(any(), any())).willReturn(car);
+        given(carService.list(any(), anyInt(), any())).willReturn(new SliceImpl<>(Collections.singletonList(car)));
+        given(reactiveCarService.findById(any())).willReturn(Mono.just(car));
+        given(carService.enrich(any(), any())).willReturn(true);
+        given(carService.enrichAll(any(), any())).willReturn(true);
     }
 
     /**
@@ -94,6 +127,71 @@ public class CarControllerTest {
                 .andExpect(jsonPath("$.id").value(car.getId()));
     }
 
+    /**
+     * Tests that a client can ask to wait for price and location.
+     *
+     * @throws Exception when car update fails in the system
+     */
+    @Test
+    public void updateCarWaitingForEnrichment() throws Exception {
+        Car car = this.getCar();
+        car.setId(1L);
+
+        mvc.perform(
+                put(new URI("/cars/1"))
+                        .content(json.write(car).getJson())
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .header(CarController.WAIT_FOR_ENRICHMENT, "true"))
+                .andExpect(status().isOk());
+
+        verify(carService).save(any(), eq(true));
+    }
+
+    /**
+     * Tests that a merge patch is handed to the service as is.
+     *
+     * @throws Exception when the patch fails in the system
+     */
+    @Test
+    public void patchCar() throws Exception {
+        Car car = this.getCar();
+        car.setId(1L);
+        given(carService.patch(eq(1L), any(), anyBoolean())).willReturn(car);
+
+        mvc.perform(
+                patch(new URI("/cars/1"))
+                        .content("{\"details\":{\"mileage\":40000,\"engine\":null}}")
+                        .contentType(CarController.MERGE_PATCH))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(car.getId()));
+
+        ArgumentCaptor<JsonNode> patch = ArgumentCaptor.forClass(JsonNode.class);
+        verify(carService).patch(eq(1L), patch.capture(), eq(false));
+        Assert.assertEquals(40000, patch.getValue().path("details").path("mileage").asInt());
+        Assert.assertTrue(patch.getValue().path("details").get("engine").isNull());
+    }
+
+    /**
+     * Tests that a bulk request body is handed to the service and its
+     * result returned.
+     *
+     * @throws Exception when bulk creation fails in the system
+     */
+    @Test
+    public void createCarsInBulk() throws Exception {
+        given(carBulkService.ingest(any())).willReturn(new BulkResult());
+
+        mvc.perform(
+                post(new URI("/cars/bulk"))
+                        .content("[" + json.write(getCar()).getJson() + "]")
+                        .contentType(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(0))
+                .andExpect(jsonPath("$.items").isEmpty());
+
+        verify(carBulkService).ingest(any());
+    }
+
     /**
      * Tests if the read operation appropriately returns a list of vehicles.
      *
@@ -126,6 +224,100 @@ public class CarControllerTest {
                         ));
     }
 
+    /**
+     * Tests that a full page links to the next one through an opaque cursor.
+     *
+     * @throws Exception if the read operation of the vehicle list fails
+     */
+    @Test
+    public void listCarsLinksToNextPage() throws Exception {
+        Car car = getCar();
+        car.setId(7L);
+        given(carService.list(any(), eq(1), any()))
+                .willReturn(new SliceImpl<>(Collections.singletonList(car), PageRequest.of(0, 1), true));
+
+        String next = CarCursor.encode(7L);
+
+        mvc.perform(
+                get(new URI("/cars?limit=1"))
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._links.next.href").value(containsString("after=" + next)));
+
+        mvc.perform(
+                get(new URI("/cars?limit=1&after=" + next))
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Tests that search filters are passed on to the service.
+     *
+     * @throws Exception if the search fails
+     */
+    @Test
+    public void searchCars() throws Exception {
+        Car car = getCar();
+        car.setId(1L);
+        given(carService.search(any(), any(), anyInt(), any()))
+                .willReturn(new SliceImpl<>(Collections.singletonList(car)));
+
+        mvc.perform(
+                get(new URI("/cars/search?manufacturerCode=101&condition=USED&minModelYear=2015&maxMileage=50000"))
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.carList[0].details.model").value("Impala"));
+
+        ArgumentCaptor<CarSearchCriteria> criteria = ArgumentCaptor.forClass(CarSearchCriteria.class);
+        verify(carService).search(criteria.capture(), isNull(), eq(CarController.DEFAULT_PAGE_SIZE), any());
+        Assert.assertEquals(Integer.valueOf(101), criteria.getValue().getManufacturerCode());
+        Assert.assertEquals(Condition.USED, criteria.getValue().getCondition());
+        Assert.assertEquals(Integer.valueOf(2015), criteria.getValue().getMinModelYear());
+        Assert.assertNull(criteria.getValue().getMaxModelYear());
+        Assert.assertEquals(Integer.valueOf(50000), criteria.getValue().getMaxMileage());
+    }
+
+    /**
+     * Tests that a cursor not issued by the API is rejected.
+     *
+     * @throws Exception if the read operation of the vehicle list fails
+     */
+    @Test
+    public void listCarsRejectsInvalidCursor() throws Exception {
+        mvc.perform(
+                get(new URI("/cars?after=not-a-cursor"))
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Tests that the export writes one JSON document per line.
+     *
+     * @throws Exception if the export fails
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void exportCars() throws Exception {
+        Car first = getCar();
+        first.setId(1L);
+        Car second = getCar();
+        second.setId(2L);
+        willAnswer(invocation -> {
+            ((Consumer<List<Car>>) invocation.getArgument(0)).accept(Arrays.asList(first, second));
+            return null;
+        }).given(carService).export(any());
+
+        String body = mvc.perform(get(new URI("/cars/export")))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CarController.NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        Assert.assertEquals(2, lines.length);
+        Assert.assertTrue(lines[0].contains("\"id\":1,"));
+        Assert.assertTrue(lines[1].contains("\"id\":2,"));
+    }
+
     /**
      * Tests the read operation for a single car by ID.
      *
@@ -156,6 +348,213 @@ public class CarControllerTest {
                 ));
     }
 
+    /**
+     * Tests that the links of a car follow the host the request was forwarded from.
+     *
+     * @throws Exception if the read operation for a single car fails
+     */
+    @Test
+    public void findCarBehindProxy() throws Exception {
+        Car car = this.getCar();
+        car.setId(1L);
+        given(carService.findById(eq(1L), any())).willReturn(car);
+
+        this.mvc.perform(get(new URI("/cars/1")).header("X-Forwarded-Host", "vehicles.example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._links.self.href").value("http://vehicles.example.com/cars/1"))
+                .andExpect(jsonPath("$._links.cars.href").value("http://vehicles.example.com/cars"));
+    }
+
+    /**
+     * Tests that only the requested properties are written, and that
+     * the price and location are not gathered when not requested.
+     *
+     * @throws Exception if the read operation for a single car fails
+     */
+    @Test
+    public void findCarWithFields() throws Exception {
+        Car car = this.getCar();
+        car.setId(1L);
+        car.setPrice("USD 10000.00");
+        given(carService.findById(eq(1L), any())).willReturn(car);
+
+        this.mvc.perform(get(new URI("/cars/1?fields=details"))
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.details.model").value(car.getDetails().getModel()))
+                .andExpect(jsonPath("$.price").doesNotExist())
+                .andExpect(jsonPath("$.location").doesNotExist())
+                .andExpect(jsonPath("$._links.self.href").value(containsString("/cars/1")));
+
+        verify(carService).enrich(car, Collections.emptySet());
+
+        this.mvc.perform(get(new URI("/cars/1?fields=mileage"))
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Tests that a car unchanged since the client read it is answered with
+     * 304 Not Modified, without gathering its price and location.
+     *
+     * @throws Exception if the read operation for a single car fails
+     */
+    @Test
+    public void findUnmodifiedCar() throws Exception {
+        Car car = this.getCar();
+        car.setId(1L);
+        car.setModifiedAt(LocalDateTime.of(2019, 6, 1, 12, 0));
+        given(carService.findById(eq(1L), any())).willReturn(car);
+
+        String eTag = this.mvc.perform(get(new URI("/cars/1")))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        this.mvc.perform(get(new URI("/cars/1")).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        verify(carService, times(1)).enrich(eq(car), any());
+
+        car.setModifiedAt(car.getModifiedAt().plusMinutes(1));
+        this.mvc.perform(get(new URI("/cars/1")).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Tests that an unchanged page of cars is answered with 304 Not Modified,
+     * without gathering prices and locations.
+     *
+     * @throws Exception if the read operation of the vehicle list fails
+     */
+    @Test
+    public void listUnmodifiedCars() throws Exception {
+        Car car = this.getCar();
+        car.setId(1L);
+        car.setModifiedAt(LocalDateTime.of(2019, 6, 1, 12, 0));
+        given(carService.list(any(), anyInt(), any())).willReturn(new SliceImpl<>(Collections.singletonList(car)));
+
+        String eTag = this.mvc.perform(get(new URI("/cars")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        this.mvc.perform(get(new URI("/cars")).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        verify(carService, times(1)).enrichAll(any(), any());
+    }
+
+    /**
+     * Tests that a car whose price or address fell back is sent without
+     * validators, so that the client gets the complete car once the
+     * services are back, and that a car whose address was resolved since
+     * the client read it is sent again.
+     *
+     * @throws Exception if the read operation for a single car fails
+     */
+    @Test
+    public void fallbackCarIsNotValidated() throws Exception {
+        Car car = this.getCar();
+        car.setId(1L);
+        car.setModifiedAt(LocalDateTime.of(2019, 6, 1, 12, 0));
+        given(carService.findById(eq(1L), any())).willReturn(car);
+        given(carService.enrich(eq(car), any())).willReturn(false);
+
+        this.mvc.perform(get(new URI("/cars/1")))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED));
+
+        given(carService.enrich(eq(car), any())).willReturn(true);
+        String eTag = this.mvc.perform(get(new URI("/cars/1")))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        car.getLocation().setAddress("777 Brockton Avenue");
+        car.getLocation().markAddressResolved(car.getModifiedAt().plusMinutes(1));
+        this.mvc.perform(get(new URI("/cars/1")).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+
+        verify(carService, times(3)).enrich(eq(car), any());
+    }
+
+    /**
+     * Tests that a page of cars in which a price or an address fell back
+     * carries no ETag, and that a page carrying one is sent again once the
+     * address of one of its cars is resolved.
+     *
+     * @throws Exception if the read operation of the vehicle list fails
+     */
+    @Test
+    public void fallbackPageIsNotValidated() throws Exception {
+        Car car = this.getCar();
+        car.setId(1L);
+        car.setModifiedAt(LocalDateTime.of(2019, 6, 1, 12, 0));
+        given(carService.list(any(), anyInt(), any())).willReturn(new SliceImpl<>(Collections.singletonList(car)));
+        given(carService.enrichAll(any(), any())).willReturn(false);
+
+        this.mvc.perform(get(new URI("/cars")))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+
+        given(carService.enrichAll(any(), any())).willReturn(true);
+        String eTag = this.mvc.perform(get(new URI("/cars")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        car.getLocation().markAddressResolved(car.getModifiedAt().plusMinutes(1));
+        this.mvc.perform(get(new URI("/cars")).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Tests that the ETag of a page of cars depends on the requested
+     * properties and view, so a client's copy of one representation does
+     * not validate another.
+     *
+     * @throws Exception if the read operation of the vehicle list fails
+     */
+    @Test
+    public void listETagDependsOnRepresentation() throws Exception {
+        Car car = this.getCar();
+        car.setId(1L);
+        car.setModifiedAt(LocalDateTime.of(2019, 6, 1, 12, 0));
+        given(carService.list(any(), anyInt(), any())).willReturn(new SliceImpl<>(Collections.singletonList(car)));
+
+        String eTag = this.mvc.perform(get(new URI("/cars?fields=id,price")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        this.mvc.perform(get(new URI("/cars?fields=price,id")).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        this.mvc.perform(get(new URI("/cars")).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+        this.mvc.perform(get(new URI("/cars?fields=id,price&view=full")).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Tests the reactive read operation for a single car by ID.
+     *
+     * @throws Exception if the read operation for a single car fails
+     */
+    @Test
+    public void findCarReactively() throws Exception {
+        Car car = this.getCar();
+
+        MvcResult result = this.mvc.perform(get(new URI("/cars/reactive/1"))
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        this.mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.details.model").value(car.getDetails().getModel()))
+                .andExpect(jsonPath("$._links.self.href").value(containsString("/cars/1")));
+    }
+
     /**
      * Tests the deletion of a single car by ID.
      *
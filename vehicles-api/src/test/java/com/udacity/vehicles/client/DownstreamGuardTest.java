@@ -0,0 +1,136 @@
+package com.udacity.vehicles.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Implements testing of the DownstreamGuard and CircuitBreaker classes.
+ */
+public class DownstreamGuardTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    /**
+     * Tests that failing calls open the circuit, that calls are rejected without
+     * being issued while it is open, and that successful trials close it again.
+     */
+    @Test
+    public void circuitOpensAndRecovers() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 50, Duration.ofSeconds(10), 2, this.now::get);
+        DownstreamGuard guard = new DownstreamGuard("test", Duration.ofSeconds(1), 10, breaker, this.registry);
+
+        this.call(guard, Mono.just("ok"));
+        this.call(guard, Mono.just("ok"));
+        this.call(guard, serverError());
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.CLOSED));
+
+        this.call(guard, serverError());
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.OPEN));
+
+        assertThat(this.call(guard, Mono.just("ok")), instanceOf(DownstreamRejectedException.class));
+        assertThat(this.calls.get(), equalTo(4));
+
+        this.now.addAndGet(Duration.ofSeconds(10).toNanos());
+        this.call(guard, Mono.just("ok"));
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.HALF_OPEN));
+        this.call(guard, Mono.just("ok"));
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.CLOSED));
+
+        assertThat(this.registry.get("downstream.calls.rejected").tag("reason", "circuit_open").counter().count(),
+                equalTo(1.0));
+        assertThat(this.registry.get("downstream.circuit.state").gauge().value(), equalTo(0.0));
+    }
+
+    /**
+     * Tests that a failed trial call opens the circuit again.
+     */
+    @Test
+    public void failedTrialReopensCircuit() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 50, Duration.ofSeconds(10), 2, this.now::get);
+        DownstreamGuard guard = new DownstreamGuard("test", Duration.ofSeconds(1), 10, breaker, this.registry);
+
+        this.call(guard, serverError());
+        this.call(guard, serverError());
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.OPEN));
+
+        this.now.addAndGet(Duration.ofSeconds(10).toNanos());
+        this.call(guard, serverError());
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.OPEN));
+        assertThat(this.call(guard, Mono.just("ok")), instanceOf(DownstreamRejectedException.class));
+    }
+
+    /**
+     * Tests that slow calls time out and that calls beyond the bulkhead are rejected.
+     */
+    @Test
+    public void slowCallsTimeOutAndFillTheBulkhead() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 50, Duration.ofSeconds(10));
+        DownstreamGuard guard = new DownstreamGuard("test", Duration.ofMillis(100), 1, breaker, this.registry);
+
+        Mono<String> slow = guard.protect(() -> Mono.delay(Duration.ofSeconds(5)).thenReturn("late"));
+        Mono<String> rejected = guard.protect(() -> Mono.just("ok"));
+
+        Mono<Throwable> first = slow.then(Mono.<Throwable>empty()).onErrorResume(Mono::just).cache();
+        first.subscribe();
+
+        assertThat(rejected.then(Mono.<Throwable>empty()).onErrorResume(Mono::just).block(),
+                instanceOf(DownstreamRejectedException.class));
+        assertThat(first.block(), instanceOf(TimeoutException.class));
+        assertThat(this.registry.get("downstream.calls").tag("outcome", "timeout").timer().count(),
+                equalTo(1L));
+    }
+
+    /**
+     * Tests that client errors do not count against the circuit, while
+     * connection errors do.
+     */
+    @Test
+    public void onlyDownstreamFaultsOpenCircuit() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 50, Duration.ofSeconds(10), 2, this.now::get);
+        DownstreamGuard guard = new DownstreamGuard("test", Duration.ofSeconds(1), 10, breaker, this.registry);
+
+        this.call(guard, error(404));
+        this.call(guard, error(404));
+        this.call(guard, Mono.error(new IllegalArgumentException("bad coordinate")));
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.CLOSED));
+
+        this.call(guard, Mono.error(new ConnectException("Connection refused")));
+        assertThat(breaker.getState(), equalTo(CircuitBreaker.State.OPEN));
+        assertThat(this.registry.get("downstream.calls").tag("outcome", "failure").timer().count(),
+                equalTo(4L));
+    }
+
+    private static Mono<String> serverError() {
+        return error(503);
+    }
+
+    private static Mono<String> error(int status) {
+        return Mono.error(WebClientResponseException.create(status, "", HttpHeaders.EMPTY, new byte[0], null));
+    }
+
+    private Throwable call(DownstreamGuard guard, Mono<String> result) {
+        return guard
+                .protect(() -> {
+                    this.calls.incrementAndGet();
+                    return result;
+                })
+                .then(Mono.<Throwable>empty())
+                .onErrorResume(Mono::just)
+                .block();
+    }
+}
@@ -0,0 +1,118 @@
+package com.udacity.vehicles.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Implements testing of the HedgedWebClients class.
+ */
+public class HedgedWebClientsTest {
+
+    private final WebClient slow = WebClient.create("http://slow");
+    private final WebClient fast = WebClient.create("http://fast");
+    private final AtomicBoolean slowCancelled = new AtomicBoolean();
+
+    /**
+     * Tests that a request slower than the observed percentile is answered
+     * by the other instance and the slow request cancelled.
+     */
+    @Test
+    public void slowRequestIsHedged() {
+        HedgedWebClients clients = this.clients(100);
+        this.warmUp(clients);
+
+        assertThat(clients.exchange(this.request()).block(), equalTo("fast"));
+        assertThat(this.slowCancelled.get(), equalTo(true));
+    }
+
+    /**
+     * Tests that no request is hedged once the hedge budget is exhausted.
+     */
+    @Test
+    public void hedgesAreCapped() {
+        HedgedWebClients clients = this.clients(0);
+        this.warmUp(clients);
+
+        assertThat(clients.exchange(this.request()).block(), equalTo("slow"));
+        assertThat(this.slowCancelled.get(), equalTo(false));
+    }
+
+    /**
+     * Tests that nothing is hedged before enough latencies were observed.
+     */
+    @Test
+    public void noHedgeWithoutLatencies() {
+        HedgedWebClients clients = this.clients(100);
+
+        assertThat(clients.getHedgeDelayNanos(), equalTo(-1L));
+        assertThat(clients.exchange(this.request()).block(), equalTo("slow"));
+    }
+
+    /**
+     * Tests that a request failing fast is answered by its hedge instead of failing.
+     */
+    @Test
+    public void fastErrorWaitsForHedge() {
+        HedgedWebClients clients = this.clients(100);
+        this.warmUp(clients);
+
+        assertThat(clients.exchange(this.failingRequest(false)).block(), equalTo("fast"));
+    }
+
+    /**
+     * Tests that a request fails once every attempt failed.
+     */
+    @Test
+    public void failsWhenEveryAttemptFailed() {
+        HedgedWebClients clients = this.clients(100);
+        this.warmUp(clients);
+
+        assertThat(clients.exchange(this.failingRequest(true)).onErrorReturn("failed").block(Duration.ofSeconds(5)),
+                equalTo("failed"));
+    }
+
+    /**
+     * Tests that a failed request whose hedge is not sent fails instead of waiting forever.
+     */
+    @Test
+    public void failsWhenHedgeIsNotSent() {
+        HedgedWebClients clients = this.clients(0);
+        this.warmUp(clients);
+
+        assertThat(clients.exchange(this.failingRequest(false)).onErrorReturn("failed").block(Duration.ofSeconds(5)),
+                equalTo("failed"));
+    }
+
+    private HedgedWebClients clients(int maxHedgePercent) {
+        return new HedgedWebClients("test", Arrays.asList(this.slow, this.fast), 95, maxHedgePercent,
+                Duration.ZERO, new SimpleMeterRegistry());
+    }
+
+    private void warmUp(HedgedWebClients clients) {
+        for (int i = 0; i < HedgedWebClients.MIN_SAMPLES; i++) {
+            clients.record(Duration.ofMillis(1).toNanos());
+        }
+    }
+
+    private Function<WebClient, Mono<String>> request() {
+        return client -> client == this.slow
+                ? Mono.delay(Duration.ofMillis(300)).thenReturn("slow").doOnCancel(() -> this.slowCancelled.set(true))
+                : Mono.just("fast");
+    }
+
+    private Function<WebClient, Mono<String>> failingRequest(boolean hedgeFails) {
+        return client -> client == this.slow || hedgeFails
+                ? Mono.error(new IllegalStateException("instance down"))
+                : Mono.just("fast");
+    }
+}
@@ -0,0 +1,91 @@
+package com.udacity.vehicles.client.maps;
+
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Implements testing of the GeocodeCache class.
+ */
+public class GeocodeCacheTest {
+
+    private final Address address = new Address();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicInteger batchLoads = new AtomicInteger();
+
+    /**
+     * Tests that two nearby coordinates fall into the same cell and share a single load.
+     */
+    @Test
+    public void nearbyCoordinatesShareOneLoad() {
+        GeocodeCache cache = this.cache(Mono.delay(Duration.ofMillis(100)).thenReturn(this.address));
+
+        Coordinate first = cache.cellOf(40.730610, -73.935242);
+        Coordinate second = cache.cellOf(40.730612, -73.935238);
+        Mono<Address> firstAddress = cache.get(first);
+        Mono<Address> secondAddress = cache.get(second);
+
+        assertThat(first, equalTo(second));
+        assertThat(firstAddress.block(), sameInstance(this.address));
+        assertThat(secondAddress.block(), sameInstance(this.address));
+        assertThat(this.loads.get(), equalTo(1));
+    }
+
+    /**
+     * Tests that a failed load is not cached, so the cell is loaded again on the next lookup.
+     */
+    @Test
+    public void failedLoadIsNotCached() {
+        AtomicInteger attempts = new AtomicInteger();
+        GeocodeCache cache = this.cache(Mono.defer(() -> attempts.incrementAndGet() == 1
+                ? Mono.error(new IllegalStateException("maps down"))
+                : Mono.just(this.address)));
+        Coordinate cell = cache.cellOf(40.730610, -73.935242);
+
+        assertThat(cache.get(cell).map(found -> "found").onErrorReturn("failed").block(), equalTo("failed"));
+        assertThat(cache.get(cell).block(), sameInstance(this.address));
+        assertThat(this.loads.get(), equalTo(2));
+    }
+
+    /**
+     * Tests that the cells missing from the cache are loaded with one batch.
+     */
+    @Test
+    public void missingCellsAreLoadedInOneBatch() {
+        GeocodeCache cache = this.cache(Mono.just(this.address));
+        Coordinate cached = cache.cellOf(40.730610, -73.935242);
+        cache.get(cached).block();
+
+        Map<Coordinate, Address> addresses = cache.getAll(Arrays.asList(
+                cached, cache.cellOf(42.3601, -71.0589), cache.cellOf(41.8781, -87.6298))).block();
+
+        assertThat(addresses.size(), equalTo(3));
+        assertThat(this.loads.get(), equalTo(1));
+        assertThat(this.batchLoads.get(), equalTo(1));
+    }
+
+    private GeocodeCache cache(Mono<Address> address) {
+        return new GeocodeCache(
+                4,
+                100,
+                Duration.ofMinutes(10),
+                cell -> {
+                    this.loads.incrementAndGet();
+                    return address;
+                },
+                cells -> {
+                    this.batchLoads.incrementAndGet();
+                    return Mono.just(cells.stream().collect(Collectors.toMap(cell -> cell, cell -> this.address)));
+                }
+        );
+    }
+}
@@ -0,0 +1,195 @@
+package com.udacity.vehicles.client.maps;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udacity.tracing.ReactiveTracer;
+import com.udacity.tracing.SpanExporter;
+import com.udacity.vehicles.client.CircuitBreaker;
+import com.udacity.vehicles.client.DownstreamGuard;
+import com.udacity.vehicles.client.HedgedWebClients;
+import com.udacity.vehicles.domain.Location;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Implements testing of the MapsClient class.
+ */
+public class MapsClientTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private boolean echoCoordinates;
+    private boolean reversed;
+    private int missing;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MapsClient client = new MapsClient(
+            new HedgedWebClients("maps", Collections.singletonList(WebClient.builder()
+                    .baseUrl("http://maps")
+                    .exchangeFunction(this::answer)
+                    .build()), 95, 0, Duration.ZERO, this.registry),
+            new DownstreamGuard("maps", Duration.ofSeconds(5), 10,
+                    new CircuitBreaker(10, 50, Duration.ofSeconds(10)), this.registry),
+            500,
+            4,
+            10000,
+            3600,
+            this.registry,
+            new ReactiveTracer(
+                    new SpanExporter(SpanExporter.Target.NONE, "test", "spans.json",
+                            "http://localhost:9411/api/v2/spans", 100, 1000, this.registry),
+                    1.0)
+    );
+
+    /**
+     * Tests that locations falling into the same cell are requested once,
+     * and that each of them gets the address of its cell.
+     */
+    @Test
+    public void cellsAreRequestedOnceAndFannedOut() {
+        Location first = new Location(40.730610, -73.935242);
+        Location sameCell = new Location(40.730612, -73.935238);
+        Location other = new Location(42.360100, -71.058900);
+
+        List<Location> resolved = this.client.getAddresses(Arrays.asList(first, sameCell, other)).block();
+
+        assertThat(this.batchSizes, equalTo(Collections.singletonList(2)));
+        assertThat(resolved, equalTo(Arrays.asList(first, sameCell, other)));
+        assertThat(first.getAddress(), equalTo("40.7306,-73.9352"));
+        assertThat(sameCell.getAddress(), equalTo("40.7306,-73.9352"));
+        assertThat(other.getAddress(), equalTo("42.3601,-71.0589"));
+    }
+
+    /**
+     * Tests that cells resolved by a batch are served from the cache afterwards.
+     */
+    @Test
+    public void resolvedCellsAreCached() {
+        this.client.getAddresses(Arrays.asList(
+                new Location(40.730610, -73.935242),
+                new Location(42.360100, -71.058900))).block();
+
+        Location nearby = new Location(40.730608, -73.935244);
+        this.client.getAddresses(Collections.singletonList(nearby)).block();
+        this.client.getAddressAsync(new Location(42.360101, -71.058899)).block();
+
+        assertThat(this.batchSizes, equalTo(Collections.singletonList(2)));
+        assertThat(nearby.getAddress(), equalTo("40.7306,-73.9352"));
+    }
+
+    /**
+     * Tests that addresses carrying their coordinate are matched by it,
+     * whatever their order.
+     */
+    @Test
+    public void addressesAreMatchedByCoordinate() {
+        this.echoCoordinates = true;
+        this.reversed = true;
+        Location first = new Location(40.730610, -73.935242);
+        Location other = new Location(42.360100, -71.058900);
+
+        this.client.getAddresses(Arrays.asList(first, other)).block();
+
+        assertThat(first.getAddress(), equalTo("40.7306,-73.9352"));
+        assertThat(other.getAddress(), equalTo("42.3601,-71.0589"));
+    }
+
+    /**
+     * Tests that a batch answered with fewer addresses than coordinates
+     * leaves every location bare and caches nothing.
+     */
+    @Test
+    public void shortBatchIsNotCached() {
+        this.missing = 1;
+        Location first = new Location(40.730610, -73.935242);
+        Location other = new Location(42.360100, -71.058900);
+
+        this.client.getAddresses(Arrays.asList(first, other)).block();
+
+        assertThat(first.getAddress(), nullValue());
+        assertThat(other.getAddress(), nullValue());
+
+        this.missing = 0;
+        this.client.getAddresses(Arrays.asList(first, other)).block();
+
+        assertThat(this.batchSizes, equalTo(Arrays.asList(2, 2)));
+        assertThat(first.getAddress(), equalTo("40.7306,-73.9352"));
+    }
+
+    /**
+     * Answers a batch request with one address per coordinate, made of the
+     * coordinate itself, optionally echoing it, reversed or missing the last ones.
+     */
+    private Mono<ClientResponse> answer(ClientRequest request) {
+        MockClientHttpRequest sent = new MockClientHttpRequest(request.method(), request.url());
+        request.body().insert(sent, new BodyInserter.Context() {
+            @Override
+            public List<HttpMessageWriter<?>> messageWriters() {
+                return ExchangeStrategies.withDefaults().messageWriters();
+            }
+
+            @Override
+            public Optional<ServerHttpRequest> serverRequest() {
+                return Optional.empty();
+            }
+
+            @Override
+            public Map<String, Object> hints() {
+                return Collections.emptyMap();
+            }
+        }).block();
+
+        try {
+            JsonNode coordinates = this.objectMapper.readTree(sent.getBodyAsString().block());
+            List<Map<String, Object>> addresses = new ArrayList<>();
+            coordinates.forEach(coordinate -> {
+                Map<String, Object> address = new HashMap<>();
+                address.put("address", coordinate.get("lat").asText() + "," + coordinate.get("lon").asText());
+                if (this.echoCoordinates) {
+                    address.put("lat", coordinate.get("lat").asDouble());
+                    address.put("lon", coordinate.get("lon").asDouble());
+                }
+                addresses.add(address);
+            });
+            this.batchSizes.add(coordinates.size());
+
+            if (this.reversed) {
+                Collections.reverse(addresses);
+            }
+            addresses.subList(addresses.size() - this.missing, addresses.size()).clear();
+
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body(this.objectMapper.writeValueAsString(addresses))
+                    .build());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
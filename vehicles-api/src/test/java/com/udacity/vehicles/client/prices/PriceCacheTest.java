@@ -0,0 +1,81 @@
+package com.udacity.vehicles.client.prices;
+
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Implements testing of the PriceCache class.
+ */
+public class PriceCacheTest {
+
+    private static final String UNAVAILABLE = "(consult price)";
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicInteger batchLoads = new AtomicInteger();
+
+    /**
+     * Tests that concurrent misses for the same vehicle share a single load.
+     */
+    @Test
+    public void concurrentMissesLoadOnce() {
+        PriceCache cache = this.cache(Mono.delay(Duration.ofMillis(100)).thenReturn("USD 1000"));
+
+        Mono<String> first = cache.get(1L);
+        Mono<String> second = cache.get(1L);
+
+        assertThat(first.block(), equalTo("USD 1000"));
+        assertThat(second.block(), equalTo("USD 1000"));
+        assertThat(this.loads.get(), equalTo(1));
+    }
+
+    /**
+     * Tests that an unavailable price is cached instead of being requested again.
+     */
+    @Test
+    public void unavailablePriceIsCached() {
+        PriceCache cache = this.cache(Mono.just(UNAVAILABLE));
+
+        assertThat(cache.get(1L).block(), equalTo(UNAVAILABLE));
+        assertThat(cache.get(1L).block(), equalTo(UNAVAILABLE));
+        assertThat(this.loads.get(), equalTo(1));
+        assertThat(cache.stats().hitCount(), equalTo(1L));
+    }
+
+    /**
+     * Tests that the prices missing from the cache are loaded with one batch.
+     */
+    @Test
+    public void missingPricesAreLoadedInOneBatch() {
+        PriceCache cache = this.cache(Mono.just("USD 1000"));
+        cache.get(1L).block();
+
+        Map<Long, String> prices = cache.getAll(Arrays.asList(1L, 2L, 3L)).block();
+
+        assertThat(prices.size(), equalTo(3));
+        assertThat(this.loads.get(), equalTo(1));
+        assertThat(this.batchLoads.get(), equalTo(1));
+    }
+
+    private PriceCache cache(Mono<String> price) {
+        return new PriceCache(
+                100,
+                Duration.ofMinutes(10),
+                Duration.ofSeconds(10),
+                UNAVAILABLE,
+                vehicleId -> price.doOnSubscribe(s -> this.loads.incrementAndGet()),
+                vehicleIds -> Mono.fromSupplier(() -> {
+                    this.batchLoads.incrementAndGet();
+                    return vehicleIds.stream().collect(Collectors.toMap(id -> id, id -> "USD 1000"));
+                })
+        );
+    }
+}
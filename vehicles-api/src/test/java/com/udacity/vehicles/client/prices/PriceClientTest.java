@@ -0,0 +1,102 @@
+package com.udacity.vehicles.client.prices;
+
+import com.udacity.tracing.ReactiveTracer;
+import com.udacity.tracing.SpanExporter;
+import com.udacity.vehicles.client.CircuitBreaker;
+import com.udacity.vehicles.client.DownstreamGuard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Implements testing of the PriceClient metrics.
+ */
+public class PriceClientTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PriceClient client = new PriceClient(
+            WebClient.builder()
+                    .baseUrl("http://pricing")
+                    .exchangeFunction(this::answer)
+                    .build(),
+            new DownstreamGuard("pricing", Duration.ofSeconds(5), 10,
+                    new CircuitBreaker(10, 50, Duration.ofSeconds(10)), registry),
+            100,
+            0,
+            10000,
+            600,
+            10,
+            registry,
+            new ReactiveTracer(
+                    new SpanExporter(SpanExporter.Target.NONE, "test", "spans.json",
+                            "http://localhost:9411/api/v2/spans", 100, 1000, registry),
+                    1.0)
+    );
+
+    /**
+     * Tests that lookups are timed by outcome, a price the pricing service
+     * failed to return counting as a fallback.
+     */
+    @Test
+    public void lookupsAreTimedByOutcome() {
+        assertThat(client.getPriceAsync(1L).block(), equalTo("USD 1000"));
+        assertThat(client.getPriceAsync(2L).block(), equalTo("(consult price)"));
+
+        assertThat(lookups("success"), equalTo(1L));
+        assertThat(lookups("fallback"), equalTo(1L));
+    }
+
+    /**
+     * Tests that the hits and misses of the price cache are published.
+     */
+    @Test
+    public void cacheStatsArePublished() {
+        client.getPriceAsync(1L).block();
+        client.getPriceAsync(1L).block();
+        client.getPriceAsync(2L).block();
+
+        assertThat(cacheGets("hit"), equalTo(1.0));
+        assertThat(cacheGets("miss"), equalTo(2.0));
+    }
+
+    private long lookups(String outcome) {
+        return registry.get("vehicles.price.lookups")
+                .tag("lookup", "single")
+                .tag("outcome", outcome)
+                .timer()
+                .count();
+    }
+
+    private double cacheGets(String result) {
+        return registry.get("cache.gets")
+                .tag("cache", "prices")
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+
+    /**
+     * Prices vehicle 1, while the pricing service fails for any other vehicle.
+     */
+    private Mono<ClientResponse> answer(ClientRequest request) {
+        if (!request.url().getPath().endsWith("/1")) {
+            return Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }
+
+        return Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body("{\"currency\":\"USD\",\"price\":1000,\"vehicleId\":1}")
+                .build());
+    }
+}
@@ -0,0 +1,85 @@
+package com.udacity.vehicles.config;
+
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+/**
+ * Implements testing of the RepositoryMetrics class.
+ */
+public class RepositoryMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CarRepository target = mock(CarRepository.class);
+    private CarRepository repository;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        given(provider.getObject()).willReturn(this.registry);
+
+        ProxyFactory proxyFactory = new ProxyFactory(this.target);
+        proxyFactory.addInterface(CarRepository.class);
+        this.repository = (CarRepository) new RepositoryMetrics(provider)
+                .postProcessAfterInitialization(proxyFactory.getProxy(), "carRepository");
+    }
+
+    /**
+     * Tests that a repository call is timed by repository, method and outcome.
+     */
+    @Test
+    public void callsAreTimedByOutcome() {
+        given(this.target.findById(1L)).willReturn(Optional.of(new Car()));
+        given(this.target.findById(2L)).willThrow(new IllegalStateException("database down"));
+
+        this.repository.findById(1L);
+        try {
+            this.repository.findById(2L);
+        } catch (IllegalStateException expected) {
+            // recorded as an error
+        }
+
+        assertThat(this.calls("findById", "success"), equalTo(1L));
+        assertThat(this.calls("findById", "error"), equalTo(1L));
+    }
+
+    /**
+     * Tests that a returned stream is recorded once it is closed.
+     */
+    @Test
+    public void streamsAreTimedUntilClosed() {
+        given(this.target.streamAll()).willReturn(Stream.of(new Car(), new Car()));
+
+        try (Stream<Car> cars = this.repository.streamAll()) {
+            assertThat(cars.count(), equalTo(2L));
+            assertThat(this.registry.find("vehicles.repository.calls").tag("method", "streamAll").timer(),
+                    nullValue());
+        }
+
+        assertThat(this.calls("streamAll", "success"), equalTo(1L));
+    }
+
+    private long calls(String method, String outcome) {
+        return this.registry.get("vehicles.repository.calls")
+                .tag("repository", "CarRepository")
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .timer()
+                .count();
+    }
+}
@@ -0,0 +1,74 @@
+package com.udacity.vehicles.domain.car;
+
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Implements testing of the CarMapper class.
+ */
+public class CarMapperTest {
+
+    /**
+     * Tests that null properties keep the stored value and that
+     * changes are reported.
+     */
+    @Test
+    public void copyNonNull() {
+        Car stored = car();
+        Car update = new Car();
+        update.setLocation(new Location(41.0, null));
+        update.getDetails().setMileage(40000);
+
+        assertThat(CarMapper.copyNonNull(update, stored), equalTo(true));
+        assertThat(stored.getDetails().getMileage(), equalTo(40000));
+        assertThat(stored.getDetails().getModel(), equalTo("Impala"));
+        assertThat(stored.getCondition(), equalTo(Condition.USED));
+        assertThat(stored.getLocation().getLat(), equalTo(41.0));
+        assertThat(stored.getLocation().getLon(), equalTo(-73.935242));
+    }
+
+    /**
+     * Tests that copying equal values reports no change.
+     */
+    @Test
+    public void noChange() {
+        Car stored = car();
+
+        assertThat(CarMapper.copyNonNull(car(), stored), equalTo(false));
+        assertThat(CarMapper.copyAll(car(), stored), equalTo(false));
+    }
+
+    /**
+     * Tests that copying every property clears the ones left null.
+     */
+    @Test
+    public void copyAll() {
+        Car stored = car();
+        Car update = car();
+        update.getDetails().setEngine(null);
+
+        assertThat(CarMapper.copyAll(update, stored), equalTo(true));
+        assertThat(stored.getDetails().getEngine(), nullValue());
+    }
+
+    private static Car car() {
+        Details details = new Details();
+        details.setManufacturer(new Manufacturer(101, "Chevrolet"));
+        details.setModel("Impala");
+        details.setMileage(32280);
+        details.setEngine("3.6L V6");
+
+        Car car = new Car();
+        car.setCondition(Condition.USED);
+        car.setDetails(details);
+        car.setLocation(new Location(40.730610, -73.935242));
+
+        return car;
+    }
+}
@@ -0,0 +1,115 @@
+package com.udacity.vehicles.domain.car;
+
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.manufacturer.ManufacturerRepository;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Implements testing of the CarRepository queries and of the car sequence.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureTestDatabase
+public class CarRepositoryTest {
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private ManufacturerRepository manufacturerRepository;
+
+    @Autowired
+    private CarSequenceMigration carSequenceMigration;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @After
+    public void cleanup() {
+        this.carRepository.deleteAll();
+    }
+
+    /**
+     * Tests that a resolved address is stored for a car still at the resolved location.
+     */
+    @Test
+    public void addressIsStoredForUnmovedCar() {
+        Car car = this.carRepository.save(this.car());
+
+        int updated = this.carRepository.updateResolvedAddress(car.getId(), 40.730610, -73.935242,
+                "777 Brockton Avenue", "Abington", "MA", "2351", LocalDateTime.now());
+
+        assertThat(updated, equalTo(1));
+        assertThat(this.carRepository.findById(car.getId()).get().getLocation().getAddress(),
+                equalTo("777 Brockton Avenue"));
+    }
+
+    /**
+     * Tests that the address resolved for a location the car moved away from
+     * meanwhile is not stored.
+     */
+    @Test
+    public void addressIsNotStoredForMovedCar() {
+        Car car = this.carRepository.save(this.car());
+        car.getLocation().setLat(42.3601);
+        car.getLocation().setLon(-71.0589);
+        this.carRepository.save(car);
+
+        int updated = this.carRepository.updateResolvedAddress(car.getId(), 40.730610, -73.935242,
+                "777 Brockton Avenue", "Abington", "MA", "2351", LocalDateTime.now());
+
+        Location stored = this.carRepository.findById(car.getId()).get().getLocation();
+        assertThat(updated, equalTo(0));
+        assertThat(stored.getAddress(), nullValue());
+        assertThat(stored.getLat(), equalTo(42.3601));
+    }
+
+    /**
+     * Tests that the block of IDs the sequence hands out next lies above the
+     * IDs stored before the sequence was moved past them.
+     */
+    @Test
+    public void sequenceIsMovedPastStoredIds() {
+        Car stored = this.carRepository.save(this.car());
+        this.jdbcTemplate.update("update car set id = ? where id = ?", 500, stored.getId());
+
+        this.carSequenceMigration.migrate();
+
+        Long next = this.jdbcTemplate.queryForObject("select next value for car_seq", Long.class);
+        assertThat(next - Car.ID_ALLOCATION_SIZE + 1 > 500, equalTo(true));
+    }
+
+    private Car car() {
+        Car car = new Car();
+        car.setLocation(new Location(40.730610, -73.935242));
+        Details details = new Details();
+        details.setManufacturer(this.manufacturerRepository.findById(101).get());
+        details.setModel("Impala");
+        details.setMileage(32280);
+        details.setExternalColor("white");
+        details.setBody("sedan");
+        details.setEngine("3.6L V6");
+        details.setFuelType("Gasoline");
+        details.setModelYear(2018);
+        details.setProductionYear(2018);
+        details.setNumberOfDoors(4);
+        car.setDetails(details);
+        car.setCondition(Condition.USED);
+
+        return car;
+    }
+}
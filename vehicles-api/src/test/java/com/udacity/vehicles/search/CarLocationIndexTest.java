@@ -0,0 +1,90 @@
+package com.udacity.vehicles.search;
+
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Implements testing of the CarLocationIndex class.
+ */
+public class CarLocationIndexTest {
+
+    private final CarLocationIndex index = new CarLocationIndex(0.1);
+
+    @Before
+    public void setup() {
+        // Manhattan, Brooklyn, Jersey City and Philadelphia
+        index.index(car(1L, 40.7831, -73.9712));
+        index.index(car(2L, 40.6782, -73.9442));
+        index.index(car(3L, 40.7178, -74.0431));
+        index.index(car(4L, 39.9526, -75.1652));
+    }
+
+    /**
+     * Tests that only cars within the radius are returned, nearest first.
+     */
+    @Test
+    public void withinRadius() {
+        assertThat(index.withinRadius(40.7306, -73.9352, 10, 10), equalTo(Arrays.asList(2L, 1L, 3L)));
+        assertThat(index.withinRadius(40.7306, -73.9352, 10, 2), equalTo(Arrays.asList(2L, 1L)));
+        assertThat(index.withinRadius(40.7306, -73.9352, 1, 10), equalTo(Collections.emptyList()));
+    }
+
+    /**
+     * Tests that the nearest cars are found however far they are.
+     */
+    @Test
+    public void nearest() {
+        assertThat(index.nearest(39.95, -75.16, 2), equalTo(Arrays.asList(4L, 3L)));
+        assertThat(index.nearest(-33.8688, 151.2093, 1), equalTo(Collections.singletonList(4L)));
+    }
+
+    /**
+     * Tests that moved and removed cars are reflected in the results.
+     */
+    @Test
+    public void updatesAreIndexed() {
+        index.index(car(4L, 40.7306, -73.9352));
+        assertThat(index.nearest(40.7306, -73.9352, 1), equalTo(Collections.singletonList(4L)));
+
+        index.remove(4L);
+        assertThat(index.nearest(40.7306, -73.9352, 1), equalTo(Collections.singletonList(2L)));
+        assertThat(index.size(), equalTo(3));
+    }
+
+    /**
+     * Tests that radius queries cross the antimeridian.
+     */
+    @Test
+    public void acrossTheAntimeridian() {
+        index.index(car(5L, 0, 179.99));
+
+        assertThat(index.withinRadius(0, -179.99, 5, 10), equalTo(Collections.singletonList(5L)));
+    }
+
+    /**
+     * Tests that radius queries spanning every longitude, near a pole,
+     * visit the column opposite the point too.
+     */
+    @Test
+    public void acrossThePole() {
+        index.index(car(6L, 89.95, 180));
+
+        assertThat(index.withinRadius(89.95, 0, 15, 10), equalTo(Collections.singletonList(6L)));
+    }
+
+    private static Car car(Long id, double lat, double lon) {
+        Car car = new Car();
+        car.setId(id);
+        car.setLocation(new Location(lat, lon));
+
+        return car;
+    }
+}
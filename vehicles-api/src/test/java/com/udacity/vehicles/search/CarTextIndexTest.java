@@ -0,0 +1,105 @@
+package com.udacity.vehicles.search;
+
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.Details;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Implements testing of the CarTextIndex class.
+ */
+public class CarTextIndexTest {
+
+    private final CarTextIndex index = new CarTextIndex();
+
+    @Before
+    public void setup() {
+        index.index(car(1L, "BMW", "X5", "SUV", "3.0L Diesel", "Diesel", "black"));
+        index.index(car(2L, "BMW", "X5", "SUV", "3.0L Inline-6", "Gasoline", "black"));
+        index.index(car(3L, "Chevrolet", "Impala", "sedan", "3.6L V6", "Gasoline", "white"));
+    }
+
+    /**
+     * Tests that every word of a query has to match.
+     */
+    @Test
+    public void everyWordMatches() {
+        assertThat(index.search("bmw x5 diesel black", 10), equalTo(Collections.singletonList(1L)));
+        assertThat(index.search("bmw x5", 10), equalTo(Arrays.asList(1L, 2L)));
+        assertThat(index.search("bmw impala", 10), equalTo(Collections.emptyList()));
+    }
+
+    /**
+     * Tests that words match as prefixes and with typos.
+     */
+    @Test
+    public void prefixesAndTyposMatch() {
+        assertThat(index.search("chev", 10), equalTo(Collections.singletonList(3L)));
+        assertThat(index.search("impla", 10), equalTo(Collections.singletonList(3L)));
+        assertThat(index.search("gasolnie whte", 10), equalTo(Collections.singletonList(3L)));
+    }
+
+    /**
+     * Tests that matches in more telling fields rank first.
+     */
+    @Test
+    public void tellingFieldsRankFirst() {
+        index.index(car(4L, "Dodge", "Ram", "van", "2.0L Diesel", "Gasoline", "red"));
+
+        assertThat(index.search("diesel", 10), equalTo(Arrays.asList(1L, 4L)));
+    }
+
+    /**
+     * Tests that updated and removed cars are reflected in the results.
+     */
+    @Test
+    public void updatesAreIndexed() {
+        index.index(car(3L, "Chevrolet", "Malibu", "sedan", "2.0L", "Gasoline", "white"));
+        assertThat(index.search("impala", 10), equalTo(Collections.emptyList()));
+        assertThat(index.search("malibu", 10), equalTo(Collections.singletonList(3L)));
+
+        index.remove(3L);
+        assertThat(index.search("malibu", 10), equalTo(Collections.emptyList()));
+        assertThat(index.size(), equalTo(2));
+    }
+
+    /**
+     * Tests that typos are only looked for among terms of a close length,
+     * and that removed terms no longer match with typos.
+     */
+    @Test
+    public void typosFollowUpdates() {
+        assertThat(index.search("gasolin", 10), equalTo(Arrays.asList(2L, 3L)));
+        assertThat(index.search("impalaxyz", 10), equalTo(Collections.emptyList()));
+
+        index.remove(3L);
+        assertThat(index.search("impla", 10), equalTo(Collections.emptyList()));
+
+        index.clear();
+        assertThat(index.search("blck", 10), equalTo(Collections.emptyList()));
+    }
+
+    private static Car car(Long id, String manufacturer, String model, String body,
+                           String engine, String fuelType, String color) {
+        Details details = new Details();
+        details.setManufacturer(new Manufacturer(100, manufacturer));
+        details.setModel(model);
+        details.setBody(body);
+        details.setEngine(engine);
+        details.setFuelType(fuelType);
+        details.setExternalColor(color);
+
+        Car car = new Car();
+        car.setId(id);
+        car.setDetails(details);
+
+        return car;
+    }
+}
@@ -0,0 +1,155 @@
+package com.udacity.vehicles.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import com.udacity.vehicles.search.CarLocationIndex;
+import com.udacity.vehicles.search.CarTextIndex;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import javax.validation.Validator;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.*;
+
+/**
+ * Implements testing of the CarBulkService class.
+ */
+public class CarBulkServiceTest {
+
+    private final ManufacturerService manufacturerService = mock(ManufacturerService.class);
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final CarTextIndex carTextIndex = mock(CarTextIndex.class);
+    private final CarLocationIndex carLocationIndex = mock(CarLocationIndex.class);
+    private final CarBulkService service = new CarBulkService(
+            new ObjectMapper(),
+            mock(Validator.class),
+            manufacturerService,
+            entityManager,
+            transactionManager,
+            carTextIndex,
+            carLocationIndex,
+            2
+    );
+
+    private final Manufacturer chevrolet = new Manufacturer(101, "Chevrolet");
+    private final Manufacturer reference = new Manufacturer(101, null);
+    private final List<Car> persisted = new ArrayList<>();
+    private final List<Car> pending = new ArrayList<>();
+    private long nextId = 1;
+
+    @Before
+    public void setup() {
+        given(manufacturerService.findByCode(101)).willReturn(Optional.of(chevrolet));
+        given(manufacturerService.findByCode(102)).willReturn(Optional.empty());
+        given(entityManager.getReference(Manufacturer.class, 101)).willReturn(reference);
+
+        willAnswer(invocation -> {
+            Car car = invocation.getArgument(0);
+            car.setId(nextId++);
+            assertThat(car.getDetails().getManufacturer(), sameInstance(reference));
+            persisted.add(car);
+            pending.add(car);
+            return null;
+        }).given(entityManager).persist(any(Car.class));
+
+        // the database refuses every flush holding a car of the "broken" model
+        willAnswer(invocation -> {
+            boolean broken = pending.stream().anyMatch(car -> "broken".equals(car.getDetails().getModel()));
+            pending.clear();
+            if (broken) {
+                throw new PersistenceException("value too long");
+            }
+            return null;
+        }).given(entityManager).flush();
+    }
+
+    /**
+     * Tests that cars are inserted in batches of the configured size,
+     * one flush per batch, and that the last batch may be smaller.
+     */
+    @Test
+    public void carsAreInsertedInBatches() throws IOException {
+        BulkResult result = service.ingest(json("Impala", "Malibu", "Camaro", "Tahoe", "Blazer"));
+
+        assertThat(result.getCreated(), equalTo(5));
+        assertThat(result.getRejected(), equalTo(0));
+        verify(entityManager, times(3)).flush();
+        verify(entityManager, times(3)).clear();
+        verify(transactionManager, times(3)).commit(any());
+        verify(carTextIndex, times(5)).index(any(Car.class));
+        verify(carLocationIndex, times(5)).index(any(Car.class));
+    }
+
+    /**
+     * Tests that cars are persisted with a reference to their manufacturer,
+     * and get the registered manufacturer back once stored.
+     */
+    @Test
+    public void manufacturerIsReferencedByCode() throws IOException {
+        service.ingest(json("Impala", "Malibu"));
+
+        verify(entityManager, times(2)).getReference(Manufacturer.class, 101);
+        verify(manufacturerService, never()).findAll();
+        assertThat(persisted.size(), equalTo(2));
+        persisted.forEach(car -> assertThat(car.getDetails().getManufacturer(), sameInstance(chevrolet)));
+    }
+
+    /**
+     * Tests that a car the database refuses is the only one of its batch to be rejected.
+     */
+    @Test
+    public void badRowOnlyRejectsItself() throws IOException {
+        BulkResult result = service.ingest(json("Impala", "broken", "Camaro"));
+
+        assertThat(result.getCreated(), equalTo(2));
+        assertThat(result.getRejected(), equalTo(1));
+        assertThat(result.getItems().get(0).getError(), nullValue());
+        assertThat(result.getItems().get(1).getId(), nullValue());
+        assertThat(result.getItems().get(1).getError(), equalTo("could not be stored"));
+        assertThat(result.getItems().get(2).getError(), nullValue());
+        verify(carTextIndex, times(2)).index(any(Car.class));
+    }
+
+    /**
+     * Tests that a car with an unknown manufacturer is rejected before any insert.
+     */
+    @Test
+    public void unknownManufacturerIsRejected() throws IOException {
+        String json = "[{\"condition\":\"USED\",\"details\":{\"manufacturer\":{\"code\":102},\"model\":\"F-150\"}}]";
+
+        BulkResult result = service.ingest(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getRejected(), equalTo(1));
+        assertThat(result.getItems().get(0).getError(), equalTo(ManufacturerNotExistsException.NOT_EXISTS_MESSAGE));
+        verify(entityManager, never()).persist(any());
+    }
+
+    private ByteArrayInputStream json(String... models) {
+        String cars = IntStream.range(0, models.length)
+                .mapToObj(i -> "{\"condition\":\"USED\",\"details\":{\"manufacturer\":{\"code\":101},"
+                        + "\"model\":\"" + models[i] + "\"},\"location\":{\"lat\":40.73061,\"lon\":-73.935242}}")
+                .collect(Collectors.joining(",", "[", "]"));
+
+        return new ByteArrayInputStream(cars.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,369 @@
+package com.udacity.vehicles.service;
+
+import com.udacity.tracing.ReactiveTracer;
+import com.udacity.tracing.SpanExporter;
+import com.udacity.vehicles.client.maps.MapsClient;
+import com.udacity.vehicles.client.prices.PriceClient;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.ReactiveCarRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+/**
+ * Implements testing of the CarEnricher class.
+ */
+public class CarEnricherTest {
+
+    private final PriceClient priceClient = mock(PriceClient.class);
+    private final MapsClient mapsClient = mock(MapsClient.class);
+    private final ReactiveCarRepository carRepository = mock(ReactiveCarRepository.class);
+
+    /**
+     * Tests that a car not saved yet is not priced, as it has no ID to look
+     * its price up with, while its address is still resolved.
+     */
+    @Test
+    public void newCarIsNotPricedBeforeSave() {
+        given(mapsClient.getAddressAsync(any())).willAnswer(invocation -> Mono.just(resolved(invocation.getArgument(0))));
+        Car car = this.car(null);
+
+        this.enricher(CarEnricher.Mode.CONCURRENT, false, 256).enrichForSave(car);
+
+        verifyZeroInteractions(priceClient);
+        assertThat(car.getPrice(), nullValue());
+        assertThat(car.getLocation().getAddress(), equalTo("777 Brockton Avenue"));
+    }
+
+    /**
+     * Tests that a stored car about to be saved again is priced by its ID.
+     */
+    @Test
+    public void storedCarIsPricedBeforeSave() {
+        given(priceClient.getPriceAsync(1L)).willReturn(Mono.just("USD 1000"));
+        given(mapsClient.getAddressAsync(any())).willAnswer(invocation -> Mono.just(resolved(invocation.getArgument(0))));
+        Car car = this.car(1L);
+
+        this.enricher(CarEnricher.Mode.CONCURRENT, false, 256).enrichForSave(car);
+
+        assertThat(car.getPrice(), equalTo("USD 1000"));
+        assertThat(car.getLocation().getAddress(), equalTo("777 Brockton Avenue"));
+    }
+
+    /**
+     * Tests that in sequential mode each car is priced and located on its own.
+     */
+    @Test
+    public void sequentialModeEnrichesOneCarAtATime() {
+        given(priceClient.getPrice(any())).willReturn("USD 1000");
+        given(mapsClient.getAddressAsync(any())).willAnswer(invocation -> Mono.just(resolved(invocation.getArgument(0))));
+
+        this.enricher(CarEnricher.Mode.SEQUENTIAL, false, 256).enrichAll(this.cars(3));
+
+        verify(priceClient, times(3)).getPrice(any());
+        verify(mapsClient, times(3)).getAddressAsync(any());
+        verify(priceClient, never()).getPrices(any());
+        verify(mapsClient, never()).getAddresses(any());
+    }
+
+    /**
+     * Tests that in sequential mode the reactive enrichment waits for each car
+     * before requesting the next one, and keeps their order.
+     */
+    @Test
+    public void sequentialModeEnrichesOneCarAtATimeAsync() {
+        MonoProcessor<String> firstPrice = MonoProcessor.create();
+        given(priceClient.getPriceAsync(1L)).willReturn(firstPrice);
+        given(priceClient.getPriceAsync(2L)).willReturn(Mono.just("USD 2000"));
+        given(mapsClient.getAddressAsync(any())).willAnswer(invocation -> Mono.just(resolved(invocation.getArgument(0))));
+
+        List<Car> enriched = new ArrayList<>();
+        this.enricher(CarEnricher.Mode.SEQUENTIAL, false, 256).enrichAllAsync(this.cars(2)).subscribe(enriched::add);
+
+        verify(priceClient, never()).getPriceAsync(2L);
+
+        firstPrice.onNext("USD 1000");
+
+        verify(priceClient).getPriceAsync(2L);
+        verify(priceClient, never()).getPrices(any());
+        verify(mapsClient, never()).getAddresses(any());
+        assertThat(enriched.stream().map(Car::getPrice).collect(Collectors.toList()),
+                equalTo(Arrays.asList("USD 1000", "USD 2000")));
+    }
+
+    /**
+     * Tests that in concurrent mode cars are priced and located in batches of batch-size.
+     */
+    @Test
+    public void concurrentModeEnrichesInBatches() {
+        given(priceClient.getPrices(any())).willAnswer(invocation -> Mono.just(prices(invocation.getArgument(0))));
+        given(mapsClient.getAddresses(any())).willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        this.enricher(CarEnricher.Mode.CONCURRENT, false, 256).enrichAll(this.cars(250));
+
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(priceClient, times(3)).getPrices(ids.capture());
+        verify(mapsClient, times(3)).getAddresses(any());
+        assertThat(ids.getAllValues().stream().map(Collection::size).collect(Collectors.toList()),
+                equalTo(Arrays.asList(100, 100, 50)));
+    }
+
+    /**
+     * Tests that no more than concurrency batches are in flight at once.
+     */
+    @Test
+    public void concurrentModeBoundsBatchesInFlight() {
+        MonoProcessor<Map<Long, String>> prices = MonoProcessor.create();
+        given(priceClient.getPrices(any())).willReturn(prices);
+        given(mapsClient.getAddresses(any())).willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        List<Car> cars = this.cars(4000);
+
+        this.enricher(CarEnricher.Mode.CONCURRENT, false, 256).enrichAllAsync(cars).subscribe();
+
+        verify(priceClient, times(32)).getPrices(any());
+
+        prices.onNext(Collections.emptyMap());
+
+        verify(priceClient, times(40)).getPrices(any());
+    }
+
+    /**
+     * Tests that cars are emitted in the given order even when a later
+     * batch is enriched first.
+     */
+    @Test
+    public void concurrentModeKeepsOrder() {
+        MonoProcessor<Map<Long, String>> firstBatch = MonoProcessor.create();
+        given(priceClient.getPrices(any())).willAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.contains(1L) ? firstBatch : Mono.just(prices(ids));
+        });
+        given(mapsClient.getAddresses(any())).willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        List<Long> emitted = new ArrayList<>();
+
+        this.enricher(CarEnricher.Mode.CONCURRENT, false, 256)
+                .enrichAllAsync(this.cars(250))
+                .subscribe(car -> emitted.add(car.getId()));
+
+        assertThat(emitted.isEmpty(), equalTo(true));
+
+        firstBatch.onNext(prices(Arrays.asList(1L)));
+
+        assertThat(emitted.size(), equalTo(250));
+        assertThat(emitted.get(0), equalTo(1L));
+        assertThat(emitted.get(249), equalTo(250L));
+    }
+
+    /**
+     * Tests that a car whose price could not be gathered is left with the
+     * fallback while the other cars of its batch keep their price and address.
+     */
+    @Test
+    public void unavailablePriceOnlyAffectsItsCar() {
+        Map<Long, String> prices = new HashMap<>();
+        prices.put(1L, "USD 1000");
+        prices.put(2L, "(consult price)");
+        given(priceClient.getPrices(any())).willReturn(Mono.just(prices));
+        given(mapsClient.getAddresses(any())).willAnswer(invocation -> {
+            List<Location> locations = invocation.getArgument(0);
+            locations.forEach(CarEnricherTest::resolved);
+            return Mono.just(locations);
+        });
+        List<Car> cars = this.cars(2);
+
+        this.enricher(CarEnricher.Mode.CONCURRENT, false, 256).enrichAll(cars);
+
+        assertThat(cars.get(0).getPrice(), equalTo("USD 1000"));
+        assertThat(cars.get(1).getPrice(), equalTo("(consult price)"));
+        assertThat(cars.get(0).getLocation().getAddress(), equalTo("777 Brockton Avenue"));
+        assertThat(cars.get(1).getLocation().getAddress(), equalTo("777 Brockton Avenue"));
+    }
+
+    /**
+     * Tests that enriching tells whether a price or an address fell back.
+     */
+    @Test
+    public void fallbackIsReported() {
+        given(priceClient.getPriceAsync(1L)).willReturn(Mono.just("USD 1000"));
+        given(priceClient.getPriceAsync(2L)).willReturn(Mono.just("(consult price)"));
+        given(mapsClient.getAddressAsync(any())).willAnswer(invocation -> Mono.just(resolved(invocation.getArgument(0))));
+        CarEnricher enricher = this.enricher(CarEnricher.Mode.CONCURRENT, false, 256);
+
+        assertThat(enricher.enrich(this.car(1L), Enrichment.ALL), equalTo(true));
+        assertThat(enricher.enrich(this.car(2L), Enrichment.ALL), equalTo(false));
+        assertThat(enricher.enrich(this.car(2L), EnumSet.of(Enrichment.ADDRESS)), equalTo(true));
+
+        given(mapsClient.getAddressAsync(any())).willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        assertThat(enricher.enrich(this.car(1L), Enrichment.ALL), equalTo(false));
+    }
+
+    /**
+     * Tests that the stored address of a car which did not move is reused
+     * instead of being requested again.
+     */
+    @Test
+    public void storedAddressIsReused() {
+        given(priceClient.getPriceAsync(any())).willReturn(Mono.just("USD 1000"));
+        given(priceClient.getPrices(any())).willAnswer(invocation -> Mono.just(prices(invocation.getArgument(0))));
+        Car car = this.storedCar(1L);
+        CarEnricher enricher = this.enricher(CarEnricher.Mode.CONCURRENT, true, 256);
+
+        enricher.enrich(car);
+        enricher.enrichAll(Collections.singletonList(car));
+
+        verifyZeroInteractions(mapsClient, carRepository);
+        assertThat(car.getLocation().getAddress(), equalTo("777 Brockton Avenue"));
+    }
+
+    /**
+     * Tests that a car which moved since its address was stored is located
+     * again, and its new address stored.
+     */
+    @Test
+    public void movedCarIsLocatedAgain() {
+        given(priceClient.getPriceAsync(any())).willReturn(Mono.just("USD 1000"));
+        given(mapsClient.getAddressAsync(any())).willAnswer(invocation -> {
+            Location location = invocation.getArgument(0);
+            location.setAddress("1 City Hall Square");
+            location.markAddressResolved(LocalDateTime.now());
+            return Mono.just(location);
+        });
+        given(carRepository.updateResolvedAddress(any(), any())).willReturn(Mono.just(1));
+        Car car = this.storedCar(1L);
+        car.getLocation().setLat(42.3601);
+        car.getLocation().setLon(-71.0589);
+
+        this.enricher(CarEnricher.Mode.CONCURRENT, true, 256).enrich(car);
+
+        ArgumentCaptor<Location> stored = ArgumentCaptor.forClass(Location.class);
+        verify(carRepository).updateResolvedAddress(eq(1L), stored.capture());
+        assertThat(stored.getValue().getAddress(), equalTo("1 City Hall Square"));
+        assertThat(stored.getValue().getResolvedLat(), equalTo(42.3601));
+    }
+
+    /**
+     * Tests that no more than max-in-flight cars are enriched in the background
+     * at once, and that a permit is given back once an enrichment completes.
+     */
+    @Test
+    public void backgroundEnrichmentIsCapped() {
+        MonoProcessor<String> price = MonoProcessor.create();
+        given(priceClient.getPriceAsync(any())).willReturn(price);
+        given(mapsClient.getAddressAsync(any())).willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        CarEnricher enricher = this.enricher(CarEnricher.Mode.CONCURRENT, false, 2);
+
+        enricher.enrichInBackground(this.car(1L));
+        enricher.enrichInBackground(this.car(2L));
+        enricher.enrichInBackground(this.car(3L));
+
+        verify(priceClient, times(2)).getPriceAsync(any());
+        verify(priceClient, never()).getPriceAsync(3L);
+
+        price.onNext("USD 1000");
+        enricher.enrichInBackground(this.car(4L));
+
+        verify(priceClient).getPriceAsync(4L);
+    }
+
+    /**
+     * Tests that a car enriched in the background gets its address stored,
+     * while the car returned to the client is left as saved.
+     */
+    @Test
+    public void backgroundEnrichmentStoresAddress() {
+        given(priceClient.getPriceAsync(any())).willReturn(Mono.just("USD 1000"));
+        given(mapsClient.getAddressAsync(any())).willAnswer(invocation -> Mono.just(resolved(invocation.getArgument(0))));
+        given(carRepository.updateResolvedAddress(any(), any())).willReturn(Mono.just(1));
+        Car car = this.car(1L);
+
+        this.enricher(CarEnricher.Mode.CONCURRENT, true, 256).enrichInBackground(car);
+
+        ArgumentCaptor<Location> stored = ArgumentCaptor.forClass(Location.class);
+        verify(carRepository).updateResolvedAddress(eq(1L), stored.capture());
+        verify(priceClient).getPriceAsync(1L);
+        assertThat(stored.getValue().getAddress(), equalTo("777 Brockton Avenue"));
+        assertThat(car.getLocation().getAddress(), nullValue());
+        assertThat(car.getPrice(), nullValue());
+    }
+
+    private CarEnricher enricher(CarEnricher.Mode mode, boolean persistAddresses, int backgroundMaxInFlight) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        return new CarEnricher(
+                this.priceClient,
+                this.mapsClient,
+                this.carRepository,
+                mode,
+                32,
+                100,
+                persistAddresses,
+                30,
+                backgroundMaxInFlight,
+                registry,
+                new ReactiveTracer(
+                        new SpanExporter(SpanExporter.Target.NONE, "test", "spans.json",
+                                "http://localhost:9411/api/v2/spans", 100, 1000, registry),
+                        1.0)
+        );
+    }
+
+    private List<Car> cars(int count) {
+        return LongStream.rangeClosed(1, count).mapToObj(this::car).collect(Collectors.toList());
+    }
+
+    private Car car(Long id) {
+        Car car = new Car();
+        car.setId(id);
+        car.setLocation(new Location(40.730610, -73.935242));
+
+        return car;
+    }
+
+    /**
+     * @return a car whose address was resolved and stored the day before
+     */
+    private Car storedCar(Long id) {
+        Car car = this.car(id);
+        car.getLocation().setAddress("777 Brockton Avenue");
+        car.getLocation().markAddressResolved(LocalDateTime.now().minusDays(1));
+
+        return car;
+    }
+
+    private static Map<Long, String> prices(Collection<Long> ids) {
+        return ids.stream().collect(Collectors.toMap(id -> id, id -> "USD " + id));
+    }
+
+    private static Location resolved(Location location) {
+        location.setAddress("777 Brockton Avenue");
+        location.setCity("Abington");
+        location.setState("MA");
+        location.setZip("2351");
+        location.markAddressResolved(LocalDateTime.now());
+
+        return location;
+    }
+}
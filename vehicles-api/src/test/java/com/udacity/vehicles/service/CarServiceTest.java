@@ -0,0 +1,134 @@
+package com.udacity.vehicles.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.domain.car.Details;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import com.udacity.vehicles.search.CarLocationIndex;
+import com.udacity.vehicles.search.CarTextIndex;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import javax.persistence.EntityManager;
+import javax.validation.Validator;
+import java.util.EnumSet;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+/**
+ * Implements testing of the CarService class.
+ */
+public class CarServiceTest {
+
+    private final CarRepository carRepository = mock(CarRepository.class);
+    private final ManufacturerService manufacturerService = mock(ManufacturerService.class);
+    private final CarEnricher carEnricher = mock(CarEnricher.class);
+    private final Manufacturer manufacturer = new Manufacturer(101, "Chevrolet");
+
+    @Before
+    public void setup() {
+        given(manufacturerService.findByCodeAndName(101, "Chevrolet")).willReturn(Optional.of(manufacturer));
+        given(manufacturerService.getReference(101)).willReturn(manufacturer);
+        given(carRepository.save(any())).willAnswer(invocation -> {
+            Car car = invocation.getArgument(0);
+            car.setId(1L);
+            return car;
+        });
+    }
+
+    /**
+     * Tests that in synchronous write mode a new car gets its address before
+     * it is stored and its price once it has an ID, and is not enriched again
+     * in the background.
+     */
+    @Test
+    public void syncWriteEnrichesBeforeSaving() {
+        Car car = this.car();
+
+        this.service(CarService.WriteMode.SYNC).save(car, false);
+
+        InOrder inOrder = inOrder(carEnricher, carRepository);
+        inOrder.verify(carEnricher).enrichForSave(car);
+        inOrder.verify(carRepository).save(car);
+        inOrder.verify(carEnricher).enrich(car, EnumSet.of(Enrichment.PRICE));
+        verify(carEnricher, never()).enrichInBackground(any());
+    }
+
+    /**
+     * Tests that an updated car, priced by its ID before it is stored, is not priced again.
+     */
+    @Test
+    public void syncUpdateIsPricedBeforeSaving() {
+        Car stored = this.car();
+        stored.setId(1L);
+        given(carRepository.findById(1L)).willReturn(Optional.of(stored));
+        Car update = this.car();
+        update.setId(1L);
+        update.getDetails().setModel("Malibu");
+
+        this.service(CarService.WriteMode.SYNC).save(update, false);
+
+        verify(carEnricher).enrichForSave(stored);
+        verify(carEnricher, never()).enrich(any(), any());
+    }
+
+    /**
+     * Tests that in asynchronous write mode a car is returned once stored,
+     * its price and address being requested in the background.
+     */
+    @Test
+    public void asyncWriteEnrichesInBackground() {
+        Car car = this.car();
+
+        this.service(CarService.WriteMode.ASYNC).save(car, false);
+
+        verify(carEnricher, never()).enrichForSave(any());
+        verify(carEnricher).enrichInBackground(car);
+    }
+
+    /**
+     * Tests that a client asking to wait for the enrichment gets it even in
+     * asynchronous write mode.
+     */
+    @Test
+    public void waitForEnrichmentOverridesAsyncWrite() {
+        Car car = this.car();
+
+        this.service(CarService.WriteMode.ASYNC).save(car, true);
+
+        verify(carEnricher).enrichForSave(car);
+        verify(carEnricher, never()).enrichInBackground(any());
+    }
+
+    private CarService service(CarService.WriteMode writeMode) {
+        return new CarService(
+                this.carRepository,
+                this.manufacturerService,
+                new ObjectMapper(),
+                mock(Validator.class),
+                this.carEnricher,
+                mock(EntityManager.class),
+                mock(CarTextIndex.class),
+                mock(CarLocationIndex.class),
+                100,
+                writeMode
+        );
+    }
+
+    private Car car() {
+        Car car = new Car();
+        car.setLocation(new Location(40.730610, -73.935242));
+        Details details = new Details();
+        details.setManufacturer(new Manufacturer(101, "Chevrolet"));
+        details.setModel("Impala");
+        car.setDetails(details);
+
+        return car;
+    }
+}
@@ -0,0 +1,123 @@
+package com.udacity.vehicles.service;
+
+import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import com.udacity.vehicles.domain.manufacturer.ManufacturerRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.*;
+
+/**
+ * Implements testing of the ManufacturerService class.
+ */
+public class ManufacturerServiceTest {
+
+    private final ManufacturerRepository repository = mock(ManufacturerRepository.class);
+    private final CarRepository carRepository = mock(CarRepository.class);
+    private final ManufacturerService service = new ManufacturerService(repository, carRepository);
+
+    @Before
+    public void setup() {
+        given(repository.findAll()).willReturn(Arrays.asList(
+                new Manufacturer(101, "Chevrolet"),
+                new Manufacturer(100, "Audi")
+        ));
+        service.refresh();
+        clearInvocations(repository);
+    }
+
+    /**
+     * Tests that manufacturers are looked up without database access.
+     */
+    @Test
+    public void lookupsUseTheRegistry() {
+        assertThat(service.findByCodeAndName(101, "Chevrolet").isPresent(), equalTo(true));
+        assertThat(service.findByCodeAndName(101, "Audi").isPresent(), equalTo(false));
+        assertThat(service.findByCode(102), equalTo(Optional.empty()));
+        assertThat(service.findAll().get(0).getName(), equalTo("Audi"));
+
+        verifyZeroInteractions(repository);
+    }
+
+    /**
+     * Tests that a saved manufacturer is found right away.
+     */
+    @Test
+    public void saveRefreshesTheRegistry() {
+        Manufacturer ford = new Manufacturer(102, "Ford");
+        given(repository.save(any())).willReturn(ford);
+        given(repository.findAll()).willReturn(Arrays.asList(
+                new Manufacturer(100, "Audi"),
+                new Manufacturer(101, "Chevrolet"),
+                ford
+        ));
+
+        service.save(ford);
+
+        assertThat(service.findByCodeAndName(102, "Ford").isPresent(), equalTo(true));
+    }
+
+    /**
+     * Tests that a manufacturer cars are made by cannot be deleted.
+     */
+    @Test(expected = ManufacturerInUseException.class)
+    public void deleteInUse() {
+        given(carRepository.existsByDetailsManufacturerCode(101)).willReturn(true);
+
+        service.delete(101);
+    }
+
+    /**
+     * Tests that a manufacturer a car was saved with after the check is not
+     * deleted, and stays in the registry.
+     */
+    @Test
+    public void deleteRacingCarSave() {
+        willThrow(new DataIntegrityViolationException("FK_CAR_MANUFACTURER")).given(repository).flush();
+
+        try {
+            service.delete(101);
+            fail("ManufacturerInUseException expected");
+        } catch (ManufacturerInUseException e) {
+            assertThat(service.findByCode(101).isPresent(), equalTo(true));
+        }
+    }
+
+    /**
+     * Tests that the registry is reloaded once the delete is committed, so
+     * that a save reloading it while the delete is not committed yet does
+     * not leave the deleted manufacturer in it.
+     */
+    @Test
+    public void deleteRefreshesAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.delete(101);
+            verify(repository, never()).findAll();
+
+            given(repository.save(any())).willAnswer(invocation -> invocation.getArgument(0));
+            service.save(new Manufacturer(100, "Audi"));
+            assertThat(service.findByCode(101).isPresent(), equalTo(true));
+
+            given(repository.findAll()).willReturn(Arrays.asList(new Manufacturer(100, "Audi")));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+            assertThat(service.findByCode(101).isPresent(), equalTo(false));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}